@@ -23,6 +23,12 @@ public class ModelClient {
 	)
 	private String model = null;
 
+	@Parameter (
+		names = {"--format"},
+		description = "The wire format, json or smile"
+	)
+	private String format = "json";
+
 	@DynamicParameter (
 		names = {"-P"},
 		description = "Model parameters. For example, -Pkey=value"
@@ -51,6 +57,7 @@ public class ModelClient {
 	public void run(){
 		ClientConfig config = new DefaultClientConfig();
 		(config.getClasses()).add(JacksonJsonProvider.class);
+		(config.getClasses()).add(SmileProvider.class);
 
 		Client client = Client.create(config);
 
@@ -59,8 +66,23 @@ public class ModelClient {
 		EvaluationRequest request = new EvaluationRequest();
 		request.setParameters(this.parameters);
 
-		EvaluationResponse response = resource.accept(MediaType.APPLICATION_JSON).entity(request, MediaType.APPLICATION_JSON).post(EvaluationResponse.class);
+		String mediaType = getMediaType();
+
+		EvaluationResponse response = resource.accept(mediaType).entity(request, mediaType).post(EvaluationResponse.class);
 
 		System.out.println(response.getResult());
 	}
+
+	private String getMediaType(){
+
+		if(("json").equals(this.format)){
+			return MediaType.APPLICATION_JSON;
+		} else
+
+		if(("smile").equals(this.format)){
+			return SmileProvider.MEDIA_TYPE;
+		}
+
+		throw new IllegalArgumentException("Unsupported format " + this.format);
+	}
 }
\ No newline at end of file
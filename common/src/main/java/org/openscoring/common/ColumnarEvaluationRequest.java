@@ -0,0 +1,46 @@
+package org.openscoring.common;
+
+import java.util.*;
+
+/**
+ * A batch of evaluation requests in columnar layout: the field names are sent once and every column holds the
+ * values of one field for all rows, in row order.
+ */
+public class ColumnarEvaluationRequest {
+
+	public static final String MEDIA_TYPE = "application/vnd.openscoring.columnar+json";
+
+	private List<String> ids = null;
+
+	private List<String> fields = null;
+
+	private List<List<Object>> columns = null;
+
+
+	/**
+	 * Optional request identifiers, one per row.
+	 */
+	public List<String> getIds(){
+		return this.ids;
+	}
+
+	public void setIds(List<String> ids){
+		this.ids = ids;
+	}
+
+	public List<String> getFields(){
+		return this.fields;
+	}
+
+	public void setFields(List<String> fields){
+		this.fields = fields;
+	}
+
+	public List<List<Object>> getColumns(){
+		return this.columns;
+	}
+
+	public void setColumns(List<List<Object>> columns){
+		this.columns = columns;
+	}
+}
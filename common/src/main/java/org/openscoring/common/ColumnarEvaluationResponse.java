@@ -0,0 +1,30 @@
+package org.openscoring.common;
+
+import java.util.*;
+
+/**
+ * Results of a {@link ColumnarEvaluationRequest} in the same layout: one column per result field, in row order.
+ */
+public class ColumnarEvaluationResponse {
+
+	private List<String> fields = null;
+
+	private List<List<Object>> columns = null;
+
+
+	public List<String> getFields(){
+		return this.fields;
+	}
+
+	public void setFields(List<String> fields){
+		this.fields = fields;
+	}
+
+	public List<List<Object>> getColumns(){
+		return this.columns;
+	}
+
+	public void setColumns(List<List<Object>> columns){
+		this.columns = columns;
+	}
+}
@@ -0,0 +1,31 @@
+package org.openscoring.common;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import javax.ws.rs.ext.*;
+
+import org.codehaus.jackson.jaxrs.*;
+import org.codehaus.jackson.map.*;
+import org.codehaus.jackson.smile.*;
+
+/**
+ * Reads and writes entities in Smile, the binary encoding of the Jackson data model. It maps the same classes as
+ * the JSON provider, so either encoding can be negotiated without changes to the request and response objects.
+ */
+@Provider
+@Consumes(SmileProvider.MEDIA_TYPE)
+@Produces(SmileProvider.MEDIA_TYPE)
+public class SmileProvider extends JacksonJsonProvider {
+
+	public static final String MEDIA_TYPE = "application/x-jackson-smile";
+
+
+	public SmileProvider(){
+		super(new ObjectMapper(new SmileFactory()));
+	}
+
+	@Override
+	protected boolean isJsonType(MediaType mediaType){
+		return (mediaType != null) && ("application").equals(mediaType.getType()) && ("x-jackson-smile").equals(mediaType.getSubtype());
+	}
+}
@@ -0,0 +1,222 @@
+package org.openscoring.server;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.ModelEvaluatorFactory;
+import org.jpmml.manager.PMMLManager;
+import org.openscoring.server.evaluation.InputBinding;
+import org.openscoring.server.responses.ThresholdSummaryResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A deployed model version together with the {@link Evaluator}, {@link Threshold} and summary built from it.
+ *
+ * Instances are created once at deploy time and shared by every request for that version, so they must not be
+ * mutated after {@link #compile(PMML)} returns. The PMML tree, evaluator and input binding may be dropped by
+ * {@link ModelResidency} while the version is cold and are rebuilt on the next access; the threshold and summary
+ * always stay in memory.
+ */
+@Slf4j
+public class CompiledModel {
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    /**
+     * Sequence number that is unique to this instance, so that state derived from it can tell a redeployed version
+     * apart from the one it replaced.
+     */
+    @Getter
+    private final long generation = GENERATIONS.incrementAndGet();
+    @Getter
+    private final Threshold threshold;
+    @Getter
+    private final ThresholdSummaryResponse summary;
+    @Getter
+    private final HashCode summaryHash;
+    /**
+     * Estimated heap size of the PMML tree, measured when the model is compiled.
+     */
+    @Getter
+    private final long footprint;
+
+    private volatile Resident resident;
+    private volatile ModelResidency residency;
+    private volatile ModelResidency.Stored stored;
+    private volatile boolean released;
+
+    protected CompiledModel(final PMML pmml,
+                            final Evaluator evaluator,
+                            final Threshold threshold,
+                            final InputBinding inputBinding) {
+        this.resident = new Resident(pmml, evaluator, inputBinding);
+        this.threshold = threshold;
+        this.summary = summarize(evaluator, threshold);
+        this.summaryHash = hash(summary);
+        this.footprint = estimateFootprint(pmml);
+    }
+
+    public PMML getPmml() {
+        return resident().pmml;
+    }
+
+    public Evaluator getEvaluator() {
+        return resident().evaluator;
+    }
+
+    public InputBinding getInputBinding() {
+        return resident().inputBinding;
+    }
+
+    /**
+     * The PMML tree, evaluator and input binding as one consistent set. Callers that need more than one of them
+     * should hold on to the returned instance, as separate getter calls may each rebuild a cold model.
+     */
+    public Resident getResident() {
+        return resident();
+    }
+
+    private Resident resident() {
+        final Resident resident = this.resident;
+
+        return (resident != null) ? resident : residency.promote(this);
+    }
+
+    /**
+     * Hands the heavy parts of this model over to a residency manager, which from now on decides whether they stay
+     * in memory.
+     */
+    Resident demote(final ModelResidency residency, final ModelResidency.Stored stored) {
+        final Resident resident = this.resident;
+
+        this.stored = stored;
+        this.residency = residency;
+        this.resident = null;
+
+        return resident;
+    }
+
+    ModelResidency.Stored getStored() {
+        return stored;
+    }
+
+    void release() {
+        this.released = true;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    public static CompiledModel compile(final PMML pmml) {
+        return compile(pmml, Threshold.fromHeader(pmml.getHeader()));
+    }
+
+    /**
+     * Compiles a model whose threshold has already been read, as when restoring it from a snapshot.
+     */
+    public static CompiledModel compile(final PMML pmml, final Threshold threshold) {
+        final Resident resident = Resident.build(pmml);
+
+        return new CompiledModel(pmml,
+                                 resident.evaluator,
+                                 threshold,
+                                 resident.inputBinding);
+    }
+
+    /**
+     * The footprint only informs residency and metrics, so a failed estimate must not fail the deployment.
+     */
+    private static long estimateFootprint(final PMML pmml) {
+        try {
+            return FootprintEstimator.estimate(pmml);
+        } catch (RuntimeException e) {
+            log.warn("Cannot estimate model footprint, assuming 0 bytes", e);
+            return 0L;
+        } catch (LinkageError e) {
+            log.warn("Cannot estimate model footprint, assuming 0 bytes", e);
+            return 0L;
+        }
+    }
+
+    private static ThresholdSummaryResponse summarize(final Evaluator evaluator, final Threshold threshold) {
+        final ThresholdSummaryResponse summary = new ThresholdSummaryResponse();
+
+        summary.setActiveFields(toValueList(evaluator.getActiveFields()));
+        summary.setPredictedFields(toValueList(evaluator.getPredictedFields()));
+        summary.setOutputFields(toValueList(evaluator.getOutputFields()));
+        summary.setThreshold(threshold);
+
+        return summary;
+    }
+
+    private static HashCode hash(final ThresholdSummaryResponse summary) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        for (List<String> fields : Arrays.asList(summary.getActiveFields(),
+                                                 summary.getPredictedFields(),
+                                                 summary.getOutputFields())) {
+            hasher.putInt(fields.size());
+            for (String field : fields) {
+                hasher.putString(field);
+                hasher.putByte((byte)0);
+            }
+        }
+        hasher.putString(String.valueOf(summary.getThreshold()));
+
+        return hasher.hash();
+    }
+
+    private static List<String> toValueList(final List<FieldName> names) {
+        final List<String> result = new ArrayList<String>(names.size());
+
+        for (FieldName name : names) {
+            result.add(name.getValue());
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * The parts of a model that are rebuilt from its PMML tree.
+     */
+    public static final class Resident {
+        final PMML pmml;
+        final Evaluator evaluator;
+        final InputBinding inputBinding;
+
+        Resident(final PMML pmml, final Evaluator evaluator, final InputBinding inputBinding) {
+            this.pmml = pmml;
+            this.evaluator = evaluator;
+            this.inputBinding = inputBinding;
+        }
+
+        public PMML getPmml() {
+            return pmml;
+        }
+
+        public Evaluator getEvaluator() {
+            return evaluator;
+        }
+
+        public InputBinding getInputBinding() {
+            return inputBinding;
+        }
+
+        static Resident build(final PMML pmml) {
+            final PMMLManager pmmlManager = new PMMLManager(pmml);
+            final Evaluator evaluator = (Evaluator)pmmlManager.getModelManager(null, ModelEvaluatorFactory.getInstance());
+
+            return new Resident(pmml, evaluator, InputBinding.create(pmml, evaluator));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.openscoring.server;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Estimates the retained heap size of an object graph by walking its fields. Sizes follow the layout of a 64-bit
+ * JVM with compressed references: 12-byte object headers, 16-byte array headers, 4-byte references and 8-byte
+ * alignment. Enum constants and classes are shared and are not counted. Fields that cannot be made accessible, as
+ * with classes of modules that are not open to reflection, are not followed; each of them counts as a small object.
+ */
+public class FootprintEstimator {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    private static final int INACCESSIBLE_REFERENT = 16;
+
+    private static final ConcurrentMap<Class<?>, Layout> layouts = new ConcurrentHashMap<Class<?>, Layout>();
+
+    private FootprintEstimator() {
+    }
+
+    public static long estimate(final Object root) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Deque<Object> pending = new ArrayDeque<Object>();
+        long total = 0;
+
+        if (root != null) {
+            pending.push(root);
+        }
+
+        while (!pending.isEmpty()) {
+            final Object object = pending.pop();
+
+            if (!visited.add(object)) {
+                continue;
+            }
+
+            final Class<?> type = object.getClass();
+
+            if (type.isArray()) {
+                final Class<?> componentType = type.getComponentType();
+                final int length = Array.getLength(object);
+
+                if (componentType.isPrimitive()) {
+                    total += align(ARRAY_HEADER + (long)length * sizeOf(componentType));
+                } else {
+                    total += align(ARRAY_HEADER + (long)length * REFERENCE);
+
+                    for (int i = 0; i < length; i++) {
+                        push(pending, Array.get(object, i));
+                    }
+                }
+                continue;
+            }
+
+            final Layout layout = layout(type);
+            total += layout.size;
+
+            for (Field field : layout.references) {
+                try {
+                    push(pending, field.get(object));
+                } catch (IllegalAccessException e) {
+                    // Counted as a reference only
+                }
+            }
+        }
+
+        return total;
+    }
+
+    private static void push(final Deque<Object> pending, final Object object) {
+        if (object != null && !(object instanceof Class) && !(object instanceof Enum)) {
+            pending.push(object);
+        }
+    }
+
+    private static Layout layout(final Class<?> type) {
+        Layout layout = layouts.get(type);
+
+        if (layout == null) {
+            layout = new Layout(type);
+            layouts.putIfAbsent(type, layout);
+        }
+
+        return layout;
+    }
+
+    private static long align(final long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int sizeOf(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * The shallow size of instances of a class and the fields through which they reference other objects.
+     */
+    private static class Layout {
+        final long size;
+        final List<Field> references = new ArrayList<Field>();
+
+        Layout(final Class<?> type) {
+            long size = OBJECT_HEADER;
+
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+
+                    size += sizeOf(field.getType());
+
+                    if (!field.getType().isPrimitive()) {
+                        try {
+                            field.setAccessible(true);
+                            references.add(field);
+                        } catch (RuntimeException e) {
+                            // SecurityException, or InaccessibleObjectException on Java 9 and later
+                            size += INACCESSIBLE_REFERENT;
+                        }
+                    }
+                }
+            }
+
+            this.size = align(size);
+        }
+    }
+}
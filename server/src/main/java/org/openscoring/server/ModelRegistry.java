@@ -0,0 +1,236 @@
+package org.openscoring.server;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.Striped;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Deployed models by id and version. Every change publishes a new immutable snapshot with a compare-and-set, so
+ * readers never block and always see a consistent set of versions for a model. Registered versions are handed to
+ * {@link ModelResidency}, which keeps their in-memory form within the configured budget.
+ *
+ * Changes to the same model id are serialized by a lock that is held until every listener has been notified, so
+ * listeners see the registration and unregistration of a version in the order they were published.
+ *
+ * Once a change is published it stands; failures of the residency manager or of a listener are logged and do not
+ * reach the caller.
+ */
+@Slf4j
+@Singleton
+public class ModelRegistry {
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>(Snapshot.EMPTY);
+    private final ModelResidency residency;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    @Inject
+    public ModelRegistry(final ModelResidency residency) {
+        this.residency = residency;
+    }
+
+    /**
+     * Adds a model version. Versions are immutable, so this returns <code>false</code> and leaves the registry
+     * unchanged if the version is already deployed.
+     */
+    public boolean register(final String id, final Integer version, final CompiledModel model) {
+        final Lock lock = locks.get(id);
+
+        lock.lock();
+        try {
+            while (true) {
+                final Snapshot current = snapshot.get();
+                final ImmutableSortedMap<Integer, CompiledModel> versions = current.getVersions(id);
+
+                if (versions.containsKey(version)) {
+                    return false;
+                }
+
+                final ImmutableSortedMap<Integer, CompiledModel> updated = ImmutableSortedMap.<Integer, CompiledModel>naturalOrder()
+                        .putAll(versions)
+                        .put(version, model)
+                        .build();
+
+                if (snapshot.compareAndSet(current, current.with(id, updated, current.size + 1))) {
+                    admit(id, version, model);
+                    for (Listener listener : listeners) {
+                        notifyRegister(listener, id, version, model);
+                    }
+                    return true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a model version, returning the removed model or <code>null</code> if it was not deployed.
+     */
+    public CompiledModel unregister(final String id, final Integer version) {
+        final Lock lock = locks.get(id);
+
+        lock.lock();
+        try {
+            while (true) {
+                final Snapshot current = snapshot.get();
+                final ImmutableSortedMap<Integer, CompiledModel> versions = current.getVersions(id);
+                final CompiledModel model = versions.get(version);
+
+                if (model == null) {
+                    return null;
+                }
+
+                final ImmutableSortedMap.Builder<Integer, CompiledModel> updated = ImmutableSortedMap.naturalOrder();
+                for (Map.Entry<Integer, CompiledModel> entry : versions.entrySet()) {
+                    if (!entry.getKey().equals(version)) {
+                        updated.put(entry);
+                    }
+                }
+
+                if (snapshot.compareAndSet(current, current.with(id, updated.build(), current.size - 1))) {
+                    release(id, version, model);
+                    for (Listener listener : listeners) {
+                        notifyUnregister(listener, id, version, model);
+                    }
+                    return model;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a listener and immediately notifies it of every version that is already deployed. Listeners are called on
+     * the registering thread after the change has been published, so they may occasionally be told about a version
+     * twice.
+     */
+    public void addListener(final Listener listener) {
+        listeners.add(listener);
+
+        for (Map.Entry<String, ImmutableSortedMap<Integer, CompiledModel>> entry : snapshot.get().models.entrySet()) {
+            for (Map.Entry<Integer, CompiledModel> version : entry.getValue().entrySet()) {
+                notifyRegister(listener, entry.getKey(), version.getKey(), version.getValue());
+            }
+        }
+    }
+
+    private void admit(final String id, final Integer version, final CompiledModel model) {
+        try {
+            residency.admit(model);
+        } catch (RuntimeException e) {
+            log.error("Cannot hand model {} version {} over to residency, keeping it in memory",
+                      new Object[]{id, version, e});
+        }
+    }
+
+    private void release(final String id, final Integer version, final CompiledModel model) {
+        try {
+            residency.release(model);
+        } catch (RuntimeException e) {
+            log.error("Cannot release model {} version {} from residency", new Object[]{id, version, e});
+        }
+    }
+
+    private static void notifyRegister(final Listener listener,
+                                       final String id,
+                                       final Integer version,
+                                       final CompiledModel model) {
+        try {
+            listener.onRegister(id, version, model);
+        } catch (RuntimeException e) {
+            log.error("Listener {} failed on registration of model {} version {}",
+                      new Object[]{listener, id, version, e});
+        }
+    }
+
+    private static void notifyUnregister(final Listener listener,
+                                         final String id,
+                                         final Integer version,
+                                         final CompiledModel model) {
+        try {
+            listener.onUnregister(id, version, model);
+        } catch (RuntimeException e) {
+            log.error("Listener {} failed on unregistration of model {} version {}",
+                      new Object[]{listener, id, version, e});
+        }
+    }
+
+    public CompiledModel get(final String id, final Integer version) {
+        return snapshot.get().getVersions(id).get(version);
+    }
+
+    public boolean contains(final String id, final Integer version) {
+        return get(id, version) != null;
+    }
+
+    /**
+     * All deployed versions of a model in ascending order, or an empty map if the model is unknown.
+     */
+    public ImmutableSortedMap<Integer, CompiledModel> getVersions(final String id) {
+        return snapshot.get().getVersions(id);
+    }
+
+    public ImmutableSet<String> getIds() {
+        return snapshot.get().models.keySet();
+    }
+
+    /**
+     * The number of deployed model versions across all ids.
+     */
+    public int size() {
+        return snapshot.get().size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public interface Listener {
+        void onRegister(String id, Integer version, CompiledModel model);
+
+        void onUnregister(String id, Integer version, CompiledModel model);
+    }
+
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(ImmutableMap.<String, ImmutableSortedMap<Integer, CompiledModel>>of(), 0);
+
+        final ImmutableMap<String, ImmutableSortedMap<Integer, CompiledModel>> models;
+        final int size;
+
+        Snapshot(final ImmutableMap<String, ImmutableSortedMap<Integer, CompiledModel>> models, final int size) {
+            this.models = models;
+            this.size = size;
+        }
+
+        ImmutableSortedMap<Integer, CompiledModel> getVersions(final String id) {
+            final ImmutableSortedMap<Integer, CompiledModel> versions = models.get(id);
+            return (versions != null) ? versions : ImmutableSortedMap.<Integer, CompiledModel>of();
+        }
+
+        Snapshot with(final String id, final ImmutableSortedMap<Integer, CompiledModel> versions, final int size) {
+            final ImmutableMap.Builder<String, ImmutableSortedMap<Integer, CompiledModel>> builder = ImmutableMap.builder();
+
+            for (Map.Entry<String, ImmutableSortedMap<Integer, CompiledModel>> entry : models.entrySet()) {
+                if (!entry.getKey().equals(id)) {
+                    builder.put(entry);
+                }
+            }
+            if (!versions.isEmpty()) {
+                builder.put(id, versions);
+            }
+
+            return new Snapshot(builder.build(), size);
+        }
+    }
+}
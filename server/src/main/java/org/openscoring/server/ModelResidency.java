@@ -0,0 +1,233 @@
+package org.openscoring.server;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.dmg.pmml.PMML;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the PMML trees and evaluators of deployed models within a memory budget. Every registered version is
+ * serialized and compressed into an off-heap buffer once; its in-memory form then lives in an LRU cache weighed by
+ * its estimated {@link CompiledModel#getFootprint() footprint}, and versions that fall out of the cache are rebuilt
+ * from the buffer on their next access. Serialization relies on {@link org.openscoring.server.deploy.PmmlParser}
+ * having stripped the SAX locators from the tree.
+ *
+ * When neither a budget nor an idle timeout is configured every version simply stays in memory. A version whose
+ * footprint alone exceeds the budget would be evicted as soon as it was admitted, so it is pinned in memory instead.
+ */
+@Slf4j
+@Singleton
+public class ModelResidency {
+    private final Cache<CompiledModel, CompiledModel.Resident> cache;
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final long maxBytes;
+
+    @Inject
+    public ModelResidency(final ServerSettings settings) {
+        this.maxBytes = settings.getResidentMaxBytes();
+
+        if (settings.getResidentMaxBytes() > 0 || settings.getResidentIdleSeconds() > 0) {
+            final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+
+            if (settings.getResidentMaxBytes() > 0) {
+                builder.maximumWeight(settings.getResidentMaxBytes())
+                       .weigher(new Weigher<CompiledModel, CompiledModel.Resident>() {
+                           @Override
+                           public int weigh(final CompiledModel model, final CompiledModel.Resident resident) {
+                               return weight(model);
+                           }
+                       });
+            }
+            if (settings.getResidentIdleSeconds() > 0) {
+                builder.expireAfterAccess(settings.getResidentIdleSeconds(), TimeUnit.SECONDS);
+            }
+
+            this.cache = builder.removalListener(new RemovalListener<CompiledModel, CompiledModel.Resident>() {
+                @Override
+                public void onRemoval(final RemovalNotification<CompiledModel, CompiledModel.Resident> notification) {
+                    residentBytes.addAndGet(-weight(notification.getKey()));
+                }
+            }).build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Starts managing a newly registered model. A model that cannot be serialized, or that is larger than the whole
+     * budget, stays in memory.
+     */
+    public void admit(final CompiledModel model) {
+        if (cache == null) {
+            return;
+        }
+
+        if (maxBytes > 0 && model.getFootprint() > maxBytes) {
+            log.warn("Model footprint of {} bytes exceeds the resident budget of {} bytes, keeping it in memory",
+                     model.getFootprint(), maxBytes);
+            return;
+        }
+
+        final Stored stored;
+
+        try {
+            stored = store(model.getPmml());
+        } catch (IOException e) {
+            log.error("Cannot compress model, keeping it in memory outside of the budget", e);
+            return;
+        }
+
+        synchronized (model) {
+            if (model.isReleased()) {
+                return;
+            }
+
+            storedBytes.addAndGet(stored.bytes.capacity());
+            residentBytes.addAndGet(weight(model));
+            cache.put(model, model.demote(this, stored));
+        }
+    }
+
+    /**
+     * Stops managing an unregistered model. Requests still holding it can use it, but it is no longer cached.
+     */
+    public void release(final CompiledModel model) {
+        synchronized (model) {
+            model.release();
+
+            final Stored stored = model.getStored();
+
+            if (cache != null && stored != null) {
+                cache.invalidate(model);
+                storedBytes.addAndGet(-stored.bytes.capacity());
+            }
+        }
+    }
+
+    CompiledModel.Resident promote(final CompiledModel model) {
+        if (model.isReleased()) {
+            return restore(model.getStored());
+        }
+
+        try {
+            final CompiledModel.Resident resident = cache.get(model, new Callable<CompiledModel.Resident>() {
+                @Override
+                public CompiledModel.Resident call() throws Exception {
+                    final CompiledModel.Resident resident = restore(model.getStored());
+
+                    residentBytes.addAndGet(weight(model));
+                    return resident;
+                }
+            });
+
+            if (model.isReleased()) {
+                cache.invalidate(model);
+            }
+
+            return resident;
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * The number of model versions currently held in memory by the cache.
+     */
+    public long getResidentCount() {
+        return (cache != null) ? cache.size() : 0L;
+    }
+
+    /**
+     * The estimated heap size of the model versions currently held in memory by the cache.
+     */
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+
+    /**
+     * The size of the compressed off-heap copies of all managed model versions.
+     */
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    /**
+     * Evictions count demotions, loads count promotions.
+     */
+    public CacheStats stats() {
+        return (cache != null) ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    private static Stored store(final PMML pmml) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(bytes));
+
+        oos.writeObject(pmml);
+        oos.close();
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray());
+        buffer.flip();
+
+        return new Stored(buffer);
+    }
+
+    private static int weight(final CompiledModel model) {
+        return (int)Math.min(model.getFootprint(), Integer.MAX_VALUE);
+    }
+
+    private static CompiledModel.Resident restore(final Stored stored) {
+        final ByteBuffer buffer = stored.bytes.duplicate();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        try {
+            final ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+
+            return CompiledModel.Resident.build((PMML)ois.readObject());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot restore model", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot restore model", e);
+        }
+    }
+
+    /**
+     * The compressed serialized form of a model.
+     */
+    static final class Stored {
+        final ByteBuffer bytes;
+
+        Stored(final ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -3,46 +3,116 @@
  */
 package org.openscoring.server;
 
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Metered;
 import com.codahale.metrics.annotation.Timed;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
 import com.google.common.collect.*;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.sun.jersey.api.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.dmg.pmml.*;
 import org.jpmml.evaluator.Evaluator;
 import org.jpmml.evaluator.EvaluatorUtil;
-import org.jpmml.evaluator.ModelEvaluatorFactory;
-import org.jpmml.manager.PMMLManager;
+import org.openscoring.common.ColumnarEvaluationRequest;
 import org.openscoring.common.EvaluationRequest;
-import org.openscoring.common.EvaluationResponse;
+import org.openscoring.common.SmileProvider;
 import org.openscoring.common.SummaryResponse;
+import org.openscoring.server.audit.ScoringAuditLog;
+import org.openscoring.server.deploy.DeploymentException;
+import org.openscoring.server.deploy.DeploymentStatus;
+import org.openscoring.server.deploy.ModelDeployer;
+import org.openscoring.server.deploy.SizeLimitExceededException;
+import org.openscoring.server.evaluation.Arguments;
+import org.openscoring.server.evaluation.BatchEvaluator;
+import org.openscoring.server.evaluation.EvaluationQueue;
+import org.openscoring.server.evaluation.InvalidInputException;
+import org.openscoring.server.evaluation.ModelMetrics;
+import org.openscoring.server.evaluation.ModelRouter;
+import org.openscoring.server.evaluation.NdjsonBatchStream;
+import org.openscoring.server.evaluation.ScoreSketch;
+import org.openscoring.server.evaluation.ShadowEvaluator;
+import org.openscoring.server.evaluation.OutputProjection;
+import org.openscoring.server.evaluation.RequestCoalescer;
+import org.openscoring.server.evaluation.ResultCache;
+import org.openscoring.server.evaluation.RoutingPolicy;
+import org.openscoring.server.evaluation.VersionFanOut;
+import org.openscoring.server.storage.ModelLoader;
+import org.openscoring.server.storage.ModelRepository;
+import org.openscoring.server.responses.ScoreDistributionResponse;
 import org.openscoring.server.responses.ThresholdEvaluationResponse;
-import org.openscoring.server.responses.ThresholdSummaryResponse;
+import org.openscoring.server.responses.VersionedColumnarEvaluationResponse;
 import org.openscoring.server.responses.VersionedEvaluationResponse;
 import org.openscoring.server.responses.VersionedSummaryResponse;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Singleton
 @Path("model")
 public class ModelService {
 
-    private static final String SCORE_KEY_NAME = "score";
-    private final Table<String, Integer, PMML> cache;
+    private final ModelRegistry registry;
+    private final ModelRepository repository;
+    private final ModelLoader loader;
+    private final ModelDeployer deployer;
+    private final BatchEvaluator batchEvaluator;
+    private final VersionFanOut versionFanOut;
+    private final EvaluationQueue evaluationQueue;
+    private final RequestCoalescer requestCoalescer;
+    private final ResultCache resultCache;
+    private final ModelMetrics modelMetrics;
+    private final ModelRouter router;
+    private final ShadowEvaluator shadowEvaluator;
+    private final ScoringAuditLog auditLog;
 
     @Inject
-    protected ModelService(@Named("pmml-model-cache") final Table<String, Integer, PMML> cache) {
-        this.cache = cache;
+    protected ModelService(final ModelRegistry registry,
+                           final ModelRepository repository,
+                           final ModelLoader loader,
+                           final ModelDeployer deployer,
+                           final BatchEvaluator batchEvaluator,
+                           final VersionFanOut versionFanOut,
+                           final EvaluationQueue evaluationQueue,
+                           final RequestCoalescer requestCoalescer,
+                           final ResultCache resultCache,
+                           final ModelMetrics modelMetrics,
+                           final ModelRouter router,
+                           final ShadowEvaluator shadowEvaluator,
+                           final ScoringAuditLog auditLog) {
+        this.registry = registry;
+        this.repository = repository;
+        this.loader = loader;
+        this.deployer = deployer;
+        this.batchEvaluator = batchEvaluator;
+        this.versionFanOut = versionFanOut;
+        this.evaluationQueue = evaluationQueue;
+        this.requestCoalescer = requestCoalescer;
+        this.resultCache = resultCache;
+        this.modelMetrics = modelMetrics;
+        this.router = router;
+        this.shadowEvaluator = shadowEvaluator;
+        this.auditLog = auditLog;
     }
 
 	@PUT
@@ -51,14 +121,23 @@ public class ModelService {
 	@Path("{id}")
 	@Consumes({MediaType.APPLICATION_XML, MediaType.TEXT_XML})
 	@Produces(MediaType.TEXT_PLAIN)
-	public Response deploy(@PathParam("id") String id, @Context HttpServletRequest request){
-		Map<Integer, PMML> row = cache.row(id);
-        TreeSet<Integer> sortedVersions = Sets.newTreeSet(row.keySet());
-        Integer version = sortedVersions.isEmpty() ? 1 : (sortedVersions.last() + 1);
-
-        return deploy(id, version, request);
+	public Response deploy(@PathParam("id") String id,
+                           @QueryParam("async") @DefaultValue("false") boolean async,
+                           @Context UriInfo uriInfo,
+                           @Context HttpServletRequest request){
+		SortedMap<Integer, CompiledModel> versions = registry.getVersions(id);
+        Integer version = versions.isEmpty() ? 1 : (versions.lastKey() + 1);
+
+        return deploy(id, version, async, uriInfo, request);
 	}
 
+    /**
+     * Deploys a model version. With <code>async=true</code> the upload is only staged before answering 202, and the
+     * deployment status resource named in the Location header can be polled until the version is live.
+     *
+     * Like every other write, deploys are refused with 503 until the stored models have been loaded, as the registry
+     * does not know their versions before that.
+     */
     @PUT
     @Timed
     @Metered(name="deploy-meter")
@@ -66,214 +145,669 @@ public class ModelService {
     @Consumes({MediaType.APPLICATION_XML, MediaType.TEXT_XML})
     @Produces(MediaType.TEXT_PLAIN)
     public Response deploy(@PathParam("id") String id,
-                         @PathParam("version") Integer version,
-                         @Context HttpServletRequest request) {
-        PMML pmml;
+                           @PathParam("version") Integer version,
+                           @QueryParam("async") @DefaultValue("false") boolean async,
+                           @Context UriInfo uriInfo,
+                           @Context HttpServletRequest request) {
+        PMML pmml = null;
+
+        if (!ModelRepository.isValidId(id)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                           .entity("Model id may only contain letters, digits, '_', '-' and '.', and not only dots")
+                           .build();
+        }
+
+        if (!loader.isReady()) {
+            return notReady();
+        }
 
-        if (cache.contains(id, version)) {
+        if (registry.contains(id, version)) {
             return Response.status(Response.Status.CONFLICT)
                            .entity("Model versions cannot be updated")
                            .build();
         }
 
+        if (deployer.exceedsLimit(request.getContentLength())) {
+            return Response.status(SizeLimitExceededException.STATUS)
+                           .entity("Model exceeds the limit of " + deployer.getMaxBytes() + " bytes")
+                           .build();
+        }
+
+        File staged = null;
+
         try {
             InputStream is = request.getInputStream();
 
             try {
-                pmml = IOUtil.unmarshal(is);
+                if (async || repository.isEnabled()) {
+                    staged = deployer.stage(is);
+                } else {
+                    pmml = deployer.parse(is);
+                }
             } finally {
                 is.close();
             }
-        } catch (Exception e) {
-            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
-        }
 
-        if (getThreshold(pmml.getHeader()) == null) {
-            return Response.status(Response.Status.BAD_REQUEST)
-                           .entity("Model must have threshold")
-                           .build();
-        } else {
-            cache.put(id, version, pmml);
+            if (async) {
+                deployer.submit(id, version, staged);
+                staged = null;
+
+                URI status = uriInfo.getBaseUriBuilder()
+                                    .path(ModelService.class)
+                                    .path("{id}/{version}/status")
+                                    .build(id, version);
+
+                return Response.status(Response.Status.ACCEPTED)
+                               .location(status)
+                               .entity("Model " + id + " version " + version + " accepted for deployment")
+                               .build();
+            }
+
+            if (staged != null) {
+                pmml = deployer.read(staged);
+            }
+
+            deployer.install(id, version, pmml, staged);
 
             return Response.status(Response.Status.OK)
                            .entity("Model " + id + " deployed successfully")
                            .build();
+        } catch (DeploymentException e) {
+            if (e.getCause() != null) {
+                throw new WebApplicationException(e.getCause(), e.getStatus());
+            }
+
+            return Response.status(e.getStatus())
+                           .entity(e.getMessage())
+                           .build();
+        } catch (IOException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        } finally {
+            repository.discard(staged);
+        }
+    }
+
+    @GET
+    @Timed
+    @Path("{id}/{version}/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public DeploymentStatus getDeploymentStatus(@PathParam("id") String id,
+                                                @PathParam("version") Integer version) {
+        DeploymentStatus status = deployer.getStatus(id, version);
+        if (status == null) {
+            throw new NotFoundException();
+        }
+
+        return status;
+    }
+
+    @GET
+    @Timed
+    @Path("{id}/{version}/distribution")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ScoreDistributionResponse getScoreDistribution(@PathParam("id") String id,
+                                                          @PathParam("version") Integer version) {
+        CompiledModel model = registry.get(id, version);
+        if (model == null) {
+            throw new NotFoundException();
+        }
+
+        ModelMetrics.VersionMetrics versionMetrics = modelMetrics.get(id, version);
+        ScoreSketch scores = versionMetrics.getScores();
+
+        ScoreDistributionResponse response = new ScoreDistributionResponse();
+        response.setModelName(id);
+        response.setVersion(version);
+        response.setThreshold(model.getThreshold());
+        response.setCount(scores.getCount());
+        response.setAboveThreshold(versionMetrics.getAboveThreshold().getCount());
+        response.setBelowThreshold(versionMetrics.getBelowThreshold().getCount());
+
+        if (scores.getCount() > 0) {
+            Map<String, Double> quantiles = Maps.newLinkedHashMap();
+            for (double quantile : ScoreDistributionResponse.QUANTILES) {
+                quantiles.put(String.valueOf(quantile), scores.getQuantile(quantile));
+            }
+
+            response.setMin(scores.getMin());
+            response.setMax(scores.getMax());
+            response.setQuantiles(quantiles);
+        }
+
+        return response;
+    }
+
+    @GET
+    @Timed
+    @Path("{id}/routing")
+    @Produces(MediaType.APPLICATION_JSON)
+    public RoutingPolicy getRoutingPolicy(@PathParam("id") String id) {
+        RoutingPolicy policy = router.getPolicy(id);
+        if (policy == null) {
+            throw new NotFoundException();
+        }
+
+        return policy;
+    }
+
+    /**
+     * Routes the unversioned evaluation endpoints of a model to a pinned version or to weighted splits of versions.
+     */
+    @PUT
+    @Timed
+    @Path("{id}/routing")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public RoutingPolicy setRoutingPolicy(@PathParam("id") String id, RoutingPolicy policy) {
+        if (!loader.isReady()) {
+            throw new WebApplicationException(notReady());
+        }
+
+        if (registry.getVersions(id).isEmpty()) {
+            throw new NotFoundException();
+        }
+
+        try {
+            router.setPolicy(id, policy);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
         }
+
+        return router.getPolicy(id);
+    }
+
+    /**
+     * Makes the unversioned evaluation endpoints of a model evaluate every deployed version again.
+     */
+    @DELETE
+    @Timed
+    @Path("{id}/routing")
+    @Produces(MediaType.TEXT_PLAIN)
+    public String removeRoutingPolicy(@PathParam("id") String id) {
+        if (!router.removePolicy(id)) {
+            throw new NotFoundException();
+        }
+
+        return String.format("Routing policy of model %s removed", id);
     }
 
 	@GET
     @Timed
 	@Produces(MediaType.APPLICATION_JSON)
 	public List<String> getDeployedIds(){
-        return new ArrayList<String>(cache.rowKeySet());
+        return new ArrayList<String>(registry.getIds());
 	}
 
+	/**
+	 * Serves the summaries computed at deploy time. The strong ETag covers the version set and every version's
+	 * summary, so a matching If-None-Match is answered with 304.
+	 */
 	@GET
     @Timed
 	@Path("{id}")
 	@Produces(MediaType.APPLICATION_JSON)
-	public VersionedSummaryResponse getSummary(@PathParam("id") String id){
-        final Map<Integer, PMML> modelVersions = cache.row(id);
+	public Response getSummary(@PathParam("id") String id, @Context Request request){
+        final Map<Integer, CompiledModel> modelVersions = registry.getVersions(id);
 
 		if (modelVersions.isEmpty()) {
 			throw new NotFoundException();
 		}
 
-        VersionedSummaryResponse response = new VersionedSummaryResponse(id);
+        final EntityTag entityTag = summaryTag(modelVersions);
+        final Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
 
-        for (Map.Entry<Integer, PMML> modelVersion: modelVersions.entrySet()) {
-            final ThresholdSummaryResponse modelResponse = new ThresholdSummaryResponse();
-            final PMML model = modelVersion.getValue();
-            final Threshold threshold = getThreshold(model.getHeader());
+        if (notModified != null) {
+            return notModified.build();
+        }
 
-            try {
-                PMMLManager pmmlManager = new PMMLManager(model);
-                Evaluator evaluator = (Evaluator)pmmlManager.getModelManager(null,
-                                                                             ModelEvaluatorFactory.getInstance());
-                modelResponse.setActiveFields(toValueList(evaluator.getActiveFields()));
-                modelResponse.setPredictedFields(toValueList(evaluator.getPredictedFields()));
-                modelResponse.setOutputFields(toValueList(evaluator.getOutputFields()));
-                modelResponse.setThreshold(threshold);
-            } catch (Exception ignored) {}
+        VersionedSummaryResponse response = new VersionedSummaryResponse(id);
 
-            response.setSummaryResponse(modelVersion.getKey(), modelResponse);
+        for (Map.Entry<Integer, CompiledModel> modelVersion: modelVersions.entrySet()) {
+            response.setSummaryResponse(modelVersion.getKey(), modelVersion.getValue().getSummary());
         }
 
-		return response;
+		return Response.ok(response).tag(entityTag).build();
 	}
 
 	@POST
     @Timed
     @Metered(name = "evaluate-meter")
 	@Path("{id}")
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public VersionedEvaluationResponse evaluate(@PathParam("id") String id, EvaluationRequest request) {
-        Map<Integer, PMML> versions = cache.row(id);
+	@Consumes({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+	@Produces({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+	public VersionedEvaluationResponse evaluate(@PathParam("id") final String id,
+                                                @QueryParam("fields") final String fields,
+                                                final EvaluationRequest request) {
+        final OutputProjection projection = OutputProjection.parse(fields);
+
+        return evaluationQueue.execute(new Callable<VersionedEvaluationResponse>() {
+            @Override
+            public VersionedEvaluationResponse call() {
+                return scoreAllVersions(id, request, projection);
+            }
+        });
+	}
+
+    @POST
+    @Timed
+    @Metered(name = "evaluate-batch-meter")
+    @Path("{id}/batch")
+    @Consumes({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+    public List<VersionedEvaluationResponse> evaulateBatch(@PathParam("id") final String id,
+                                                           @QueryParam("fields") final String fields,
+                                                           final List<EvaluationRequest> requests) {
+        final OutputProjection projection = OutputProjection.parse(fields);
+
+        return evaluationQueue.execute(new Callable<List<VersionedEvaluationResponse>>() {
+            @Override
+            public List<VersionedEvaluationResponse> call() {
+                return scoreAllVersions(id, requests, projection);
+            }
+        });
+    }
+
+	@POST
+    @Timed
+    @Metered(name = "evaluate-batch-version-meter")
+	@Path("{id}/{version}/batch")
+	@Consumes({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+	@Produces({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+	public List<VersionedEvaluationResponse> evaluateBatchVersion(@PathParam("id") final String id,
+                                                                  @PathParam("version") final Integer version,
+                                                                  @QueryParam("fields") final String fields,
+                                                                  final List<EvaluationRequest> requests){
+        final OutputProjection projection = OutputProjection.parse(fields);
+
+        return evaluationQueue.execute(new Callable<List<VersionedEvaluationResponse>>() {
+            @Override
+            public List<VersionedEvaluationResponse> call() {
+                return scoreVersion(id, version, requests, projection);
+            }
+        });
+	}
+
+    /**
+     * Batch evaluation in the columnar layout, which sends every field name once instead of once per record.
+     */
+	@POST
+    @Timed
+    @Metered(name = "evaluate-batch-version-columnar-meter")
+	@Path("{id}/{version}/batch")
+	@Consumes(ColumnarEvaluationRequest.MEDIA_TYPE)
+	@Produces(ColumnarEvaluationRequest.MEDIA_TYPE)
+	public VersionedColumnarEvaluationResponse evaluateBatchVersionColumnar(@PathParam("id") final String id,
+                                                                            @PathParam("version") final Integer version,
+                                                                            @QueryParam("fields") final String fields,
+                                                                            final ColumnarEvaluationRequest request){
+        final OutputProjection projection = OutputProjection.parse(fields);
+
+        return evaluationQueue.execute(new Callable<VersionedColumnarEvaluationResponse>() {
+            @Override
+            public VersionedColumnarEvaluationResponse call() {
+                return scoreVersionColumnar(id, version, request, projection);
+            }
+        });
+	}
+
+    @POST
+    @Timed
+    @Metered(name = "evaluate-version-meter")
+    @Path("{id}/{version}")
+    @Consumes({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.MEDIA_TYPE})
+    public VersionedEvaluationResponse evaluateVersion(@PathParam("id") final String id,
+                                                       @PathParam("version") final Integer version,
+                                                       @QueryParam("fields") final String fields,
+                                                       final EvaluationRequest request) {
+        final OutputProjection projection = OutputProjection.parse(fields);
+
+        if (requestCoalescer.isEnabled()) {
+            return requestCoalescer.evaluate(id, version, projection, request,
+                    new Function<List<EvaluationRequest>, List<VersionedEvaluationResponse>>() {
+                        @Override
+                        public List<VersionedEvaluationResponse> apply(List<EvaluationRequest> coalesced) {
+                            return scoreVersion(id, version, coalesced, projection);
+                        }
+                    });
+        }
+
+        return evaluationQueue.execute(new Callable<VersionedEvaluationResponse>() {
+            @Override
+            public VersionedEvaluationResponse call() {
+                return scoreVersion(id, version, Collections.singletonList(request), projection).get(0);
+            }
+        });
+    }
+
+    @POST
+    @Timed
+    @Metered(name = "evaluate-batch-version-stream-meter")
+    @Path("{id}/{version}/batch")
+    @Consumes(NdjsonBatchStream.MEDIA_TYPE)
+    @Produces(NdjsonBatchStream.MEDIA_TYPE)
+    public StreamingOutput evaluateBatchVersionStream(@PathParam("id") final String id,
+                                                      @PathParam("version") final Integer version,
+                                                      @QueryParam("fields") final String fields,
+                                                      InputStream requests) {
+        final OutputProjection projection = OutputProjection.parse(fields);
+        final CompiledModel model = registry.get(id, version);
+        if (model == null) {
+            throw new NotFoundException();
+        }
+
+        final AtomicInteger records = new AtomicInteger();
+        final StreamingOutput stream = new NdjsonBatchStream(id, version, requests, new Function<EvaluationRequest, VersionedEvaluationResponse>() {
+            @Override
+            public VersionedEvaluationResponse apply(final EvaluationRequest request) {
+                records.incrementAndGet();
+
+                return evaluateRecord(id, version, model, request, projection);
+            }
+        });
+
+        // The stream is consumed after this method has returned, so it is admitted, as a whole, only then, and its
+        // size is only known once it has been written
+        return new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                try {
+                    evaluationQueue.execute(new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            stream.write(output);
+                            return null;
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    if (e.getCause() instanceof IOException && e.getClass() == RuntimeException.class) {
+                        throw (IOException)e.getCause();
+                    }
+                    throw e;
+                } finally {
+                    modelMetrics.get(id, version).getBatchSizes().update(records.get());
+                }
+            }
+        };
+    }
+
+    private VersionedEvaluationResponse scoreAllVersions(final String id,
+                                                         final EvaluationRequest request,
+                                                         final OutputProjection projection) {
+        final Integer routed = router.route(id, request.getId());
+        if (routed != null) {
+            final VersionedEvaluationResponse response = scoreVersion(id, routed, Collections.singletonList(request), projection).get(0);
+
+            shadow(id, routed, request, response, projection);
+
+            return response;
+        }
+
+        List<Integer> versions = Lists.newArrayList(registry.getVersions(id).keySet());
         Map<Integer, ThresholdEvaluationResponse> modelResponses = Maps.newHashMap();
 
         VersionedEvaluationResponse response = new VersionedEvaluationResponse(id);
 
-        for (Map.Entry<Integer, PMML> modelVersion: versions.entrySet()) {
-            try {
-                VersionedEvaluationResponse result = evaluateBatchVersion(id,
-                                                                          modelVersion.getKey(),
-                                                                          Collections.singletonList(request)).get(0);
-                modelResponses.putAll(result.getResult());
-            } catch (Exception ignored) {}
+        VersionFanOut.Result<VersionedEvaluationResponse> results = versionFanOut.evaluate(id, versions,
+                new Function<Integer, VersionedEvaluationResponse>() {
+                    @Override
+                    public VersionedEvaluationResponse apply(Integer version) {
+                        return scoreVersion(id, version, Collections.singletonList(request), projection).get(0);
+                    }
+                });
+
+        for (VersionedEvaluationResponse result : results.getResults().values()) {
+            modelResponses.putAll(result.getResult());
         }
 
         response.setResult(modelResponses);
+
+        if (!results.getErrors().isEmpty()) {
+            response.setErrors(results.getErrors());
+        }
+
         return response;
-	}
+    }
 
-    @POST
-    @Timed
-    @Metered(name = "evaluate-batch-meter")
-    @Path("{id}/batch")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public List<VersionedEvaluationResponse> evaulateBatch(@PathParam("id") String id,
-                                                           List<EvaluationRequest> requests) {
-        Map<Integer, PMML> versions = cache.row(id);
+    private List<VersionedEvaluationResponse> scoreAllVersions(final String id,
+                                                               final List<EvaluationRequest> requests,
+                                                               final OutputProjection projection) {
+        if (router.getPolicy(id) != null) {
+            return scoreRouted(id, requests, projection);
+        }
+
+        List<Integer> versions = Lists.newArrayList(registry.getVersions(id).keySet());
         List<VersionedEvaluationResponse> responses = Lists.newArrayList();
 
-        for (Map.Entry<Integer, PMML> modelVersion: versions.entrySet()) {
-            try {
-                List<VersionedEvaluationResponse> result = evaluateBatchVersion(id,
-                                                                                modelVersion.getKey(),
-                                                                                requests);
-                responses.addAll(result);
-            } catch (Exception ignored) {}
+        VersionFanOut.Result<List<VersionedEvaluationResponse>> results = versionFanOut.evaluate(id, versions,
+                new Function<Integer, List<VersionedEvaluationResponse>>() {
+                    @Override
+                    public List<VersionedEvaluationResponse> apply(Integer version) {
+                        return scoreVersion(id, version, requests, projection);
+                    }
+                });
+
+        for (List<VersionedEvaluationResponse> result : results.getResults().values()) {
+            responses.addAll(result);
+        }
+
+        for (Map.Entry<Integer, String> error : results.getErrors().entrySet()) {
+            VersionedEvaluationResponse failure = new VersionedEvaluationResponse(id);
+            failure.setErrors(ImmutableMap.of(error.getKey(), error.getValue()));
+            responses.add(failure);
         }
 
         return responses;
     }
 
-	@POST
-    @Timed
-    @Metered(name = "evaluate-batch-version-meter")
-	@Path("{id}/{version}/batch")
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public List<VersionedEvaluationResponse> evaluateBatchVersion(@PathParam("id") String id,
-                                                                  @PathParam("version") Integer version,
-                                                                  List<EvaluationRequest> requests){
+    /**
+     * Scores every record with the version its policy routes it to, keeping the order of the records.
+     */
+    private List<VersionedEvaluationResponse> scoreRouted(final String id,
+                                                          final List<EvaluationRequest> requests,
+                                                          final OutputProjection projection) {
+        final Map<Integer, List<Integer>> positions = Maps.newTreeMap();
+
+        for (int i = 0; i < requests.size(); i++) {
+            Integer version = router.route(id, requests.get(i).getId());
+            if (version == null) {
+                // The policy was removed meanwhile
+                return scoreAllVersions(id, requests, projection);
+            }
+
+            List<Integer> versionPositions = positions.get(version);
+            if (versionPositions == null) {
+                versionPositions = Lists.newArrayList();
+                positions.put(version, versionPositions);
+            }
+            versionPositions.add(i);
+        }
 
-		final PMML pmml = cache.get(id, version);
-		if(pmml == null){
+        final VersionedEvaluationResponse[] responses = new VersionedEvaluationResponse[requests.size()];
+
+        for (Map.Entry<Integer, List<Integer>> entry : positions.entrySet()) {
+            final List<EvaluationRequest> versionRequests = Lists.newArrayListWithCapacity(entry.getValue().size());
+            for (Integer position : entry.getValue()) {
+                versionRequests.add(requests.get(position));
+            }
+
+            final List<VersionedEvaluationResponse> versionResponses = scoreVersion(id, entry.getKey(), versionRequests, projection);
+            for (int i = 0; i < versionResponses.size(); i++) {
+                responses[entry.getValue().get(i)] = versionResponses.get(i);
+                shadow(id, entry.getKey(), versionRequests.get(i), versionResponses.get(i), projection);
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * Hands a routed record to the shadow versions of its model, which compare their own result with the one
+     * returned to the caller.
+     */
+    private void shadow(final String id,
+                        final Integer version,
+                        final EvaluationRequest request,
+                        final VersionedEvaluationResponse response,
+                        final OutputProjection projection) {
+        final ThresholdEvaluationResponse primary = (response.getResult() != null) ? response.getResult().get(version) : null;
+
+        if (primary != null && primary.getResult() != null) {
+            shadowEvaluator.submit(id, version, request, primary.getResult(), projection);
+        }
+    }
+
+    private List<VersionedEvaluationResponse> scoreVersion(final String id,
+                                                           final Integer version,
+                                                           final List<EvaluationRequest> requests,
+                                                           final OutputProjection projection) {
+		final CompiledModel model = registry.get(id, version);
+		if(model == null){
 			throw new NotFoundException();
 		}
 
-        final Threshold threshold = getThreshold(pmml.getHeader());
-
-		final List<VersionedEvaluationResponse> responses = Lists.newArrayList();
+		modelMetrics.get(id, version).getBatchSizes().update(requests.size());
 
 		try {
-			final PMMLManager pmmlManager = new PMMLManager(pmml);
+			return batchEvaluator.evaluate(requests, new Function<EvaluationRequest, VersionedEvaluationResponse>() {
+                @Override
+                public VersionedEvaluationResponse apply(EvaluationRequest request) {
+                    return evaluateRecord(id, version, model, request, projection);
+                }
+            });
+		} catch(Exception e){
+			throw toWebApplicationException(e);
+		}
+    }
 
-			final Evaluator evaluator = (Evaluator)pmmlManager.getModelManager(null,
-                                                                               ModelEvaluatorFactory.getInstance());
+    private VersionedEvaluationResponse evaluateRecord(final String id,
+                                                       final Integer version,
+                                                       final CompiledModel model,
+                                                       final EvaluationRequest request,
+                                                       final OutputProjection projection) {
+        final Threshold threshold = model.getThreshold();
+        final ModelMetrics.VersionMetrics versionMetrics = modelMetrics.get(id, version);
+        final Timer.Context timer = versionMetrics.getEvaluations().time();
+        final Map<String, Object> result;
 
-			for(EvaluationRequest request : requests) {
-                final Map<String, ?> parameters = request.getParameters();
-                final List<Map.Entry<String, ?>> toTransform = Lists.newArrayListWithCapacity(parameters.size());
+        try {
+            final CompiledModel.Resident resident = model.getResident();
+            final Arguments arguments = resident.getInputBinding().bindLocal(request.getParameters());
+
+            result = score(id, version, model, resident.getEvaluator(), arguments, projection, versionMetrics);
+        } catch (RuntimeException e) {
+            versionMetrics.getErrors().inc();
+            throw e;
+        } finally {
+            timer.stop();
+            versionMetrics.getRows().mark();
+        }
 
-                for (Map.Entry<String, ?> param : parameters.entrySet()) {
-                    if (param.getValue() instanceof Boolean) {
-                        toTransform.add(param);
-                    }
-                }
+        ThresholdEvaluationResponse response = new ThresholdEvaluationResponse();
+        response.setResult(result);
+        response.setThreshold(threshold);
 
-                log.info("Received request parameters {} with UUID {}", request.getParameters(), request.getId());
+        Map<Integer, ThresholdEvaluationResponse> responseMap = ImmutableMap.of(version, response);
 
-                for (Map.Entry<String, ?> param : toTransform) {
-                    Boolean boolValue = (Boolean) param.getValue();
-                    ((Map)parameters).put(param.getKey(), Boolean.toString(boolValue));
-                }
+        VersionedEvaluationResponse versionedResponse = new VersionedEvaluationResponse(id);
+        versionedResponse.setResult(responseMap);
 
-                log.info("Evaluating request parameters {} with UUID {}", parameters, request.getId());
+        auditLog.record(id, version, request.getId(), request.getParameters(), result);
 
-				ThresholdEvaluationResponse response = ThresholdEvaluationResponse.fromEvaluationResponse(evaluate(evaluator,
-                                                                                                                   request));
-                String scoreKey = threshold.getScoreKey();
-                Map<String, Object> result = response.getResult();
+        return versionedResponse;
+    }
 
-                if ((scoreKey != null) && (result.containsKey(scoreKey))) {
-                    result.put(SCORE_KEY_NAME, result.get(scoreKey));
-                }
+    private Map<String, Object> score(final String id,
+                                      final Integer version,
+                                      final CompiledModel model,
+                                      final Evaluator evaluator,
+                                      final Arguments arguments,
+                                      final OutputProjection projection,
+                                      final ModelMetrics.VersionMetrics versionMetrics) {
+        return resultCache.get(id, version, model, projection, arguments, new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() {
+                return evaluate(model, evaluator, arguments, projection, versionMetrics);
+            }
+        });
+    }
 
-                response.setThreshold(threshold);
+    private VersionedColumnarEvaluationResponse scoreVersionColumnar(final String id,
+                                                                     final Integer version,
+                                                                     final ColumnarEvaluationRequest request,
+                                                                     final OutputProjection projection) {
+        final CompiledModel model = registry.get(id, version);
+        if (model == null) {
+            throw new NotFoundException();
+        }
 
-                Map<Integer, ThresholdEvaluationResponse> responseMap = ImmutableMap.of(version, response);
+        final List<String> ids = request.getIds();
+        final List<List<Object>> columns = request.getColumns();
+        final int rowCount = validateColumns(request.getFields(), columns, ids);
+        final CompiledModel.Resident resident = model.getResident();
+        final int[] columnSlots = resident.getInputBinding().getSlots(request.getFields());
 
-                VersionedEvaluationResponse versionedResponse = new VersionedEvaluationResponse(id);
-                versionedResponse.setResult(responseMap);
+        final List<Integer> rows = Lists.newArrayListWithCapacity(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(row);
+        }
 
-                log.info("Evaluated model {} for request {} with result {} with UUID {}", id,
-                         parameters,
-                         response.getResult(),
-                         request.getId());
+        final ModelMetrics.VersionMetrics versionMetrics = modelMetrics.get(id, version);
+        versionMetrics.getBatchSizes().update(rowCount);
 
-				responses.add(versionedResponse);
-			}
-		} catch(Exception e){
-			throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
-		}
+        final List<Map<String, Object>> results;
 
-		return responses;
-	}
+        try {
+            results = batchEvaluator.evaluate(rows, new Function<Integer, Map<String, Object>>() {
+                @Override
+                public Map<String, Object> apply(Integer row) {
+                    final Timer.Context timer = versionMetrics.getEvaluations().time();
+                    final Arguments arguments;
+                    final Map<String, Object> result;
+
+                    try {
+                        arguments = resident.getInputBinding().bind(columnSlots, columns, row);
+                        result = score(id, version, model, resident.getEvaluator(), arguments, projection,
+                                       versionMetrics);
+                    } catch (RuntimeException e) {
+                        versionMetrics.getErrors().inc();
+                        throw e;
+                    } finally {
+                        timer.stop();
+                        versionMetrics.getRows().mark();
+                    }
 
-    @POST
-    @Timed
-    @Metered(name = "evaluate-version-meter")
-    @Path("{id}/{version}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public VersionedEvaluationResponse evaluateVersion(@PathParam("id") String id,
-                                                       @PathParam("version") Integer version,
-                                                       EvaluationRequest request) {
-        return (evaluateBatchVersion(id, version, Collections.singletonList(request))).get(0);
+                    auditLog.record(id, version, (ids != null) ? ids.get(row) : null, arguments, result);
+
+                    return result;
+                }
+            });
+        } catch (Exception e) {
+            throw toWebApplicationException(e);
+        }
+
+        final List<String> resultFields = Lists.newArrayList(model.getSummary().getPredictedFields());
+        resultFields.addAll(model.getSummary().getOutputFields());
+        if (model.getThreshold().getScoreKey() != null) {
+            resultFields.add(OutputProjection.SCORE_FIELD);
+        }
+
+        final List<String> selectedFields = projection.select(resultFields);
+        final List<List<Object>> resultColumns = Lists.newArrayListWithCapacity(selectedFields.size());
+        for (String field : selectedFields) {
+            final List<Object> column = Lists.newArrayListWithCapacity(rowCount);
+            for (Map<String, Object> result : results) {
+                column.add(result.get(field));
+            }
+            resultColumns.add(column);
+        }
+
+        final VersionedColumnarEvaluationResponse response = new VersionedColumnarEvaluationResponse(id, version);
+        response.setThreshold(model.getThreshold());
+        response.setFields(selectedFields);
+        response.setColumns(resultColumns);
+
+        return response;
     }
 
 	@DELETE
@@ -282,67 +816,111 @@ public class ModelService {
 	@Produces(MediaType.TEXT_PLAIN)
 	public String undeploy(@PathParam("id") String id,
                            @PathParam("version") Integer version){
-		PMML pmml = cache.remove(id, version);
-		if (pmml == null) {
+		if (!loader.isReady()) {
+			throw new WebApplicationException(notReady());
+		}
+
+		CompiledModel model = registry.unregister(id, version);
+		if (model == null) {
 			throw new NotFoundException();
 		}
 
+        requestCoalescer.invalidate(id, version);
+        resultCache.invalidate(id, version);
+        deployer.forget(id, version);
+
+        if (repository.isEnabled() && !repository.delete(id, version)) {
+            log.warn("Cannot delete stored model {} version {}", id, version);
+        }
+
         return String.format("Model %s version %d undeployed successfully", id, version);
 	}
 
+	/**
+	 * Results may be shared through the {@link ResultCache}, so the returned map is unmodifiable. The score is
+	 * recorded in the version's distribution here, so results served from the cache are not counted again.
+	 */
 	static
-	private EvaluationResponse evaluate(Evaluator evaluator, EvaluationRequest request){
-		EvaluationResponse response = new EvaluationResponse();
+	private Map<String, Object> evaluate(CompiledModel model, Evaluator evaluator, Arguments arguments,
+	                                     OutputProjection projection, ModelMetrics.VersionMetrics versionMetrics){
+		Map<FieldName, ?> result = evaluator.evaluate(arguments);
+		Threshold threshold = model.getThreshold();
 
-		Map<FieldName, Object> parameters = new LinkedHashMap<FieldName, Object>();
+		if(threshold.getScoreKey() != null){
+			Object score = EvaluatorUtil.decode(result.get(new FieldName(threshold.getScoreKey())));
+
+			if(score instanceof Number){
+				versionMetrics.recordScore(((Number)score).doubleValue(), threshold);
+			}
+		}
 
-		List<FieldName> activeFields = evaluator.getActiveFields();
-		for(FieldName activeField : activeFields){
-			Object value = request.getParameter(activeField.getValue());
+		return Collections.unmodifiableMap(projection.decode(result, threshold.getScoreKey()));
+	}
 
-			parameters.put(activeField, evaluator.prepare(activeField, value));
+	/**
+	 * @return the number of rows
+	 */
+	static
+	private int validateColumns(List<String> fields, List<List<Object>> columns, List<String> ids){
+		if(fields == null || columns == null || fields.size() != columns.size()){
+			throw badRequest("Expected one column per field");
 		}
 
-		Map<FieldName, ?> result = evaluator.evaluate(parameters);
+		int rowCount = columns.isEmpty() ? 0 : columns.get(0).size();
 
-		// XXX
-		response.setResult((Map)EvaluatorUtil.decode(result));
+		for(int i = 0; i < columns.size(); i++){
+			if(columns.get(i).size() != rowCount){
+				throw badRequest("Column " + fields.get(i) + " has " + columns.get(i).size() + " values, expected " + rowCount);
+			}
+		}
 
-		return response;
+		if(ids != null && ids.size() != rowCount){
+			throw badRequest("Expected " + rowCount + " ids, got " + ids.size());
+		}
+
+		return rowCount;
 	}
 
+	/**
+	 * Maps a failed batch to 400 if one of its records had invalid input and to 500 otherwise. The invalid input is
+	 * kept as the cause, so that callers reporting errors per version can still name it.
+	 */
 	static
-	private List<String> toValueList(List<FieldName> names){
-		List<String> result = new ArrayList<String>(names.size());
-
-		for(FieldName name : names){
-			result.add(name.getValue());
+	private WebApplicationException toWebApplicationException(Exception e){
+		for(Throwable cause : Throwables.getCausalChain(e)){
+			if(cause instanceof InvalidInputException){
+				return new WebApplicationException(cause, badRequest(cause.getMessage()).getResponse());
+			}
 		}
 
-		return result;
+		return new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
 	}
 
-    static private Threshold getThreshold(final Header header) {
-        final List<Extension> extensions = header.getExtensions();
-        Float upper = null;
-        Float lower = null;
-        String scoreKey = null;
+	static
+	private Response notReady(){
+		return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+				.type(MediaType.TEXT_PLAIN)
+				.entity("Stored models are still being loaded")
+				.build();
+	}
 
-        try {
-            for (Extension extension : extensions) {
-                if (extension.getName().equals("trueIfAbove")) {
-                    lower = Float.valueOf(extension.getValue());
-                } else if (extension.getName().equals("trueIfBelow")) {
-                    upper = Float.valueOf(extension.getValue());
-                } else if (extension.getName().equals("useAsScore")) {
-                    scoreKey = extension.getValue();
-                }
-            }
+	static
+	private WebApplicationException badRequest(String message){
+		return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+				.type(MediaType.TEXT_PLAIN)
+				.entity(message)
+				.build());
+	}
 
-            return new Threshold(lower, upper, scoreKey);
+	static
+	private EntityTag summaryTag(Map<Integer, CompiledModel> modelVersions){
+		Hasher hasher = Hashing.murmur3_128().newHasher();
 
-        } catch (NumberFormatException ignored) {
-            return null;
-        }
-    }
+		for(Map.Entry<Integer, CompiledModel> modelVersion : modelVersions.entrySet()){
+			hasher.putInt(modelVersion.getKey());
+			hasher.putBytes(modelVersion.getValue().getSummaryHash().asBytes());
+		}
+
+		return new EntityTag(hasher.hash().toString());
+	}
 }
\ No newline at end of file
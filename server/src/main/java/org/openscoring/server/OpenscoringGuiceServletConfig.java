@@ -6,15 +6,20 @@ import com.google.inject.Injector;
 import com.google.inject.servlet.GuiceServletContextListener;
 import com.sun.jersey.guice.JerseyServletModule;
 import org.openscoring.server.modules.OpenscoringServletModule;
+import org.openscoring.server.storage.ModelLoader;
 
 public class OpenscoringGuiceServletConfig extends GuiceServletContextListener {
     @Override
     protected Injector getInjector() {
-        return Guice.createInjector(new JerseyServletModule() {
+        final Injector injector = Guice.createInjector(new JerseyServletModule() {
             @Override
             protected void configureServlets() {
                 install(new OpenscoringServletModule());
             }
         });
+
+        injector.getInstance(ModelLoader.class).start();
+
+        return injector;
     }
 }
@@ -0,0 +1,164 @@
+package org.openscoring.server;
+
+import com.google.common.collect.Maps;
+import lombok.Data;
+import org.openscoring.server.audit.AuditPolicy;
+
+import java.util.Map;
+
+/**
+ * Tunables of the scoring service. The defaults are used by the servlet deployment; the standalone server fills
+ * them in from the "openscoring" section of its configuration.
+ */
+@Data
+public class ServerSettings {
+    /**
+     * Number of threads scoring batch chunks, 0 meaning one per available processor.
+     */
+    private int batchParallelism = 0;
+
+    /**
+     * Batches are only split when every chunk would get at least this many records.
+     */
+    private int batchMinChunkSize = 1000;
+
+    /**
+     * Number of threads evaluating model versions concurrently, 0 meaning two per available processor.
+     */
+    private int versionParallelism = 0;
+
+    /**
+     * Overall deadline for evaluating all versions of a model on the unversioned endpoints. A model with a single
+     * version is evaluated on the request thread without a deadline.
+     */
+    private long versionTimeoutMillis = 5000;
+
+    /**
+     * Number of admitted evaluation requests running at once, 0 meaning two per available processor. Evaluations run
+     * on the container thread that received them.
+     */
+    private int queueWorkers = 0;
+
+    /**
+     * Number of evaluation requests allowed to wait for a running one to finish before new ones are rejected.
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Size of the servlet container's request thread pool. Admitted evaluations, running or waiting, hold a container
+     * thread each, so no more than three quarters of these are admitted at a time.
+     */
+    private int containerThreads = 200;
+
+    /**
+     * Value of the Retry-After header sent with rejected requests.
+     */
+    private int retryAfterSeconds = 1;
+
+    /**
+     * Whether concurrent single-record calls to the same model version are scored together.
+     */
+    private boolean coalescingEnabled = false;
+
+    /**
+     * Longest time the first request of a coalesced batch waits for others to join it.
+     */
+    private long coalescingWindowMicros = 1000;
+
+    /**
+     * A coalesced batch is scored as soon as it holds this many records.
+     */
+    private int coalescingMaxBatchSize = 64;
+
+    /**
+     * Number of audit events that may wait for the background writer before new ones are dropped.
+     */
+    private int auditCapacity = 8192;
+
+    /**
+     * Audit policy of models without one of their own.
+     */
+    private AuditPolicy auditPolicy = AuditPolicy.DISABLED;
+
+    /**
+     * Audit policies by model id.
+     */
+    private Map<String, AuditPolicy> auditPolicies = Maps.newHashMap();
+
+    /**
+     * Whether evaluation results are cached by model version and active-field values.
+     */
+    private boolean resultCacheEnabled = false;
+
+    private long resultCacheMaximumSize = 100000;
+
+    private long resultCacheTtlSeconds = 60;
+
+    /**
+     * Directory where deployed PMML documents are kept across restarts, <code>null</code> meaning models are only
+     * held in memory.
+     */
+    private String storageDirectory = null;
+
+    /**
+     * Whether a binary snapshot is kept next to each stored PMML document to speed up loading on startup.
+     */
+    private boolean storageSnapshots = true;
+
+    /**
+     * Number of threads loading stored models on startup, 0 meaning one per available processor.
+     */
+    private int loadParallelism = 0;
+
+    /**
+     * Number of threads parsing and compiling asynchronously deployed models.
+     */
+    private int deployWorkers = 2;
+
+    /**
+     * Maximum number of asynchronous deployments waiting for a deploy thread.
+     */
+    private int deployQueueCapacity = 16;
+
+    /**
+     * Largest accepted PMML upload in bytes, 0 meaning unlimited.
+     */
+    private long deployMaxBytes = 1024L * 1024L * 1024L;
+
+    /**
+     * Estimated heap size of the model versions kept in memory, 0 meaning unlimited. Colder versions are demoted to
+     * compressed off-heap copies and rebuilt on their next use.
+     */
+    private long residentMaxBytes = 0;
+
+    /**
+     * Model versions unused for this long are demoted, 0 meaning never.
+     */
+    private long residentIdleSeconds = 0;
+
+    /**
+     * Number of low-priority threads evaluating shadow versions.
+     */
+    private int shadowWorkers = 1;
+
+    /**
+     * Number of shadow evaluations allowed to wait for a worker before new ones are dropped.
+     */
+    private int shadowQueueCapacity = 1024;
+
+    public int getEffectiveLoadParallelism() {
+        return (loadParallelism > 0) ? loadParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getEffectiveBatchParallelism() {
+        return (batchParallelism > 0) ? batchParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getEffectiveVersionParallelism() {
+        return (versionParallelism > 0) ? versionParallelism : 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getEffectiveQueueWorkers() {
+        return (queueWorkers > 0) ? queueWorkers : 2 * Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -4,6 +4,11 @@ import lombok.Data;
 import org.codehaus.jackson.annotate.JsonIgnoreProperties;
 import org.codehaus.jackson.annotate.JsonProperty;
 import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.dmg.pmml.Extension;
+import org.dmg.pmml.Header;
+
+import java.io.Serializable;
+import java.util.List;
 
 /**
  * Author: @andykram
@@ -11,10 +16,41 @@ import org.codehaus.jackson.map.annotate.JsonSerialize;
 @Data
 @JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
 @JsonIgnoreProperties({"scoreKey"})
-public class Threshold {
+public class Threshold implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     @JsonProperty
     private final Float trueIfAbove;
     @JsonProperty
     private final Float trueIfBelow;
     private final String scoreKey;
+
+    /**
+     * Reads the threshold from the "trueIfAbove", "trueIfBelow" and "useAsScore" header extensions.
+     *
+     * @return the threshold, or null if one of the bounds is not a number
+     */
+    public static Threshold fromHeader(final Header header) {
+        final List<Extension> extensions = header.getExtensions();
+        Float upper = null;
+        Float lower = null;
+        String scoreKey = null;
+
+        try {
+            for (Extension extension : extensions) {
+                if (extension.getName().equals("trueIfAbove")) {
+                    lower = Float.valueOf(extension.getValue());
+                } else if (extension.getName().equals("trueIfBelow")) {
+                    upper = Float.valueOf(extension.getValue());
+                } else if (extension.getName().equals("useAsScore")) {
+                    scoreKey = extension.getValue();
+                }
+            }
+
+            return new Threshold(lower, upper, scoreKey);
+
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package org.openscoring.server.audit;
+
+import lombok.Data;
+
+/**
+ * How the evaluations of a model are audited: which fraction of them is recorded and at which log level.
+ */
+@Data
+public class AuditPolicy {
+    public static final AuditPolicy DISABLED = new AuditPolicy(0.0, Level.OFF);
+
+    private final double sampleRate;
+    private final Level level;
+
+    public boolean isEnabled() {
+        return (sampleRate > 0.0) && (level != Level.OFF);
+    }
+
+    public enum Level {
+        OFF, TRACE, DEBUG, INFO
+    }
+}
@@ -0,0 +1,64 @@
+package org.openscoring.server.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer. Producers claim a slot with a CAS on
+ * the tail and never block; {@link #offer} fails instead when the buffer is full.
+ */
+class RingBuffer<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+
+        this.slots = new AtomicReferenceArray<E>(size);
+        this.mask = size - 1;
+    }
+
+    boolean offer(E element) {
+        long position;
+
+        do {
+            position = tail.get();
+
+            if (position - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        slots.lazySet((int)(position & mask), element);
+        return true;
+    }
+
+    /**
+     * Must only be called from the consumer thread.
+     *
+     * @return the next element, or null if none has been published yet
+     */
+    E poll() {
+        final long position = head.get();
+        final int index = (int)(position & mask);
+        final E element = slots.get(index);
+
+        if (element == null) {
+            return null;
+        }
+
+        slots.lazySet(index, null);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    int size() {
+        return (int)Math.max(0L, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
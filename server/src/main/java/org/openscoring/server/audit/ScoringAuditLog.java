@@ -0,0 +1,196 @@
+package org.openscoring.server.audit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.openscoring.server.ServerSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The scoring audit channel. Sampled evaluations are put on a lock-free ring buffer by the request thread and
+ * formatted and logged by a single background thread, so auditing costs the request thread one CAS at most.
+ * Events that do not fit into the buffer are dropped and counted. The background thread is only started when some
+ * policy enables auditing, and it parks while the buffer is empty until a producer wakes it.
+ */
+@Slf4j
+@Singleton
+public class ScoringAuditLog {
+    private static final Logger audit = LoggerFactory.getLogger("org.openscoring.audit");
+    private static final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final RingBuffer<Event> buffer;
+    private final AuditPolicy defaultPolicy;
+    private final Map<String, AuditPolicy> policies;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private final Thread drainer;
+
+    @Inject
+    public ScoringAuditLog(final ServerSettings settings) {
+        this.buffer = new RingBuffer<Event>(settings.getAuditCapacity());
+        this.defaultPolicy = settings.getAuditPolicy();
+        this.policies = ImmutableMap.copyOf(settings.getAuditPolicies());
+
+        if (!isAnyEnabled(defaultPolicy, policies)) {
+            this.drainer = null;
+            return;
+        }
+
+        this.drainer = new ThreadFactoryBuilder()
+                .setNameFormat("openscoring-audit")
+                .setDaemon(true)
+                .build()
+                .newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        drain();
+                    }
+                });
+        this.drainer.start();
+    }
+
+    public void record(final String id,
+                       final Integer version,
+                       final String requestId,
+                       final Map<?, ?> parameters,
+                       final Map<String, ?> result) {
+        final AuditPolicy policy = getPolicy(id);
+
+        if (drainer == null || !policy.isEnabled() || !isLoggable(policy.getLevel())) {
+            return;
+        }
+
+        if (policy.getSampleRate() < 1.0 && random.get().nextDouble() >= policy.getSampleRate()) {
+            return;
+        }
+
+        if (!buffer.offer(new Event(policy.getLevel(), id, version, requestId, parameters, result))) {
+            dropped.incrementAndGet();
+        } else if (idle.compareAndSet(true, false)) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    public AuditPolicy getPolicy(final String id) {
+        final AuditPolicy policy = policies.get(id);
+        return (policy != null) ? policy : defaultPolicy;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final Event event = buffer.poll();
+
+            if (event == null) {
+                // Producers unpark this thread when they see the flag; the second check catches an event that was
+                // offered before the flag was set
+                idle.set(true);
+                if (buffer.size() == 0) {
+                    LockSupport.park(this);
+                }
+                idle.set(false);
+                continue;
+            }
+
+            try {
+                write(event);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write audit event", e);
+            }
+        }
+    }
+
+    private static boolean isAnyEnabled(final AuditPolicy defaultPolicy, final Map<String, AuditPolicy> policies) {
+        if (defaultPolicy.isEnabled()) {
+            return true;
+        }
+
+        for (AuditPolicy policy : policies.values()) {
+            if (policy.isEnabled()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isLoggable(AuditPolicy.Level level) {
+        switch (level) {
+            case TRACE:
+                return audit.isTraceEnabled();
+            case DEBUG:
+                return audit.isDebugEnabled();
+            case INFO:
+                return audit.isInfoEnabled();
+            default:
+                return false;
+        }
+    }
+
+    private static void write(Event event) {
+        final String format = "Evaluated model {} version {} for request {} with parameters {} and result {}";
+        final Object[] arguments = {event.id, event.version, event.requestId, event.parameters, event.result};
+
+        switch (event.level) {
+            case TRACE:
+                audit.trace(format, arguments);
+                break;
+            case DEBUG:
+                audit.debug(format, arguments);
+                break;
+            case INFO:
+                audit.info(format, arguments);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static class Event {
+        private final AuditPolicy.Level level;
+        private final String id;
+        private final Integer version;
+        private final String requestId;
+        private final Map<?, ?> parameters;
+        private final Map<String, ?> result;
+
+        private Event(final AuditPolicy.Level level,
+                      final String id,
+                      final Integer version,
+                      final String requestId,
+                      final Map<?, ?> parameters,
+                      final Map<String, ?> result) {
+            this.level = level;
+            this.id = id;
+            this.version = version;
+            this.requestId = requestId;
+            this.parameters = parameters;
+            this.result = result;
+        }
+    }
+}
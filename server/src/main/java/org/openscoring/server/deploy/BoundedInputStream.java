@@ -0,0 +1,55 @@
+package org.openscoring.server.deploy;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with {@link SizeLimitExceededException} once more than the allowed number of bytes has been read.
+ */
+class BoundedInputStream extends FilterInputStream {
+    private final long limit;
+    private long count = 0;
+
+    BoundedInputStream(final InputStream in, final long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(final long n) throws SizeLimitExceededException {
+        count += n;
+        if (count > limit) {
+            throw new SizeLimitExceededException(limit);
+        }
+    }
+}
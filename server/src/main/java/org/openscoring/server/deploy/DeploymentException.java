@@ -0,0 +1,31 @@
+package org.openscoring.server.deploy;
+
+import lombok.Getter;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * A deployment that was refused, with the HTTP status the synchronous endpoint answers with.
+ */
+@Getter
+public class DeploymentException extends Exception {
+    private final int status;
+
+    public DeploymentException(final Response.Status status, final String message) {
+        this(status.getStatusCode(), message);
+    }
+
+    public DeploymentException(final Response.Status status, final Throwable cause) {
+        this(status.getStatusCode(), cause);
+    }
+
+    public DeploymentException(final int status, final String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public DeploymentException(final int status, final Throwable cause) {
+        super(cause.getMessage(), cause);
+        this.status = status;
+    }
+}
@@ -0,0 +1,28 @@
+package org.openscoring.server.deploy;
+
+import lombok.Data;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+/**
+ * Progress of a model version deployment, as served by the deployment status resource.
+ */
+@Data
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class DeploymentStatus {
+    public enum State {
+        PENDING, LOADING, DEPLOYED, FAILED
+    }
+
+    private final String id;
+    private final Integer version;
+    private final State state;
+    private final String message;
+
+    public boolean isDone() {
+        return state == State.DEPLOYED || state == State.FAILED;
+    }
+
+    public DeploymentStatus withState(final State state, final String message) {
+        return new DeploymentStatus(id, version, state, message);
+    }
+}
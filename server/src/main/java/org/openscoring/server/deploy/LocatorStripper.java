@@ -0,0 +1,121 @@
+package org.openscoring.server.deploy;
+
+import org.dmg.pmml.PMMLObject;
+import org.xml.sax.Locator;
+
+import javax.xml.bind.JAXBElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Clears the SAX locators that the JAXB reference implementation records on every unmarshalled {@link PMMLObject}.
+ * A locator holds a non-serializable <code>LocatorImpl</code>, so a tree that still has them cannot be compressed by
+ * the residency manager or written to a snapshot; they also cost an object per element while the model is deployed.
+ *
+ * Only fields declared by PMML classes are walked, together with the collections and JAXB elements they hold.
+ */
+public class LocatorStripper {
+    private static final ConcurrentMap<Class<?>, Layout> layouts = new ConcurrentHashMap<Class<?>, Layout>();
+
+    private LocatorStripper() {
+    }
+
+    public static void strip(final PMMLObject root) {
+        final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        final Deque<Object> pending = new ArrayDeque<Object>();
+
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            final Object object = pending.pop();
+
+            if (!visited.add(object)) {
+                continue;
+            }
+
+            if (object instanceof Collection) {
+                for (Object element : (Collection<?>)object) {
+                    push(pending, element);
+                }
+            } else if (object instanceof Map) {
+                for (Object value : ((Map<?, ?>)object).values()) {
+                    push(pending, value);
+                }
+            } else if (object instanceof JAXBElement) {
+                push(pending, ((JAXBElement<?>)object).getValue());
+            } else if (object instanceof PMMLObject) {
+                final Layout layout = layout(object.getClass());
+
+                try {
+                    for (Field locator : layout.locators) {
+                        locator.set(object, null);
+                    }
+                    for (Field child : layout.children) {
+                        push(pending, child.get(object));
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private static void push(final Deque<Object> pending, final Object object) {
+        if (object instanceof PMMLObject || object instanceof Collection || object instanceof Map
+                || object instanceof JAXBElement) {
+            pending.push(object);
+        }
+    }
+
+    private static Layout layout(final Class<?> type) {
+        Layout layout = layouts.get(type);
+
+        if (layout == null) {
+            layout = new Layout(type);
+            layouts.putIfAbsent(type, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * The locator fields of a PMML class and the fields through which it may reference other PMML objects.
+     */
+    private static class Layout {
+        final List<Field> locators = new ArrayList<Field>();
+        final List<Field> children = new ArrayList<Field>();
+
+        Layout(final Class<?> type) {
+            for (Class<?> c = type; c != null && PMMLObject.class.isAssignableFrom(c); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    final Class<?> fieldType = field.getType();
+
+                    if (Modifier.isStatic(field.getModifiers()) || fieldType.isPrimitive()) {
+                        continue;
+                    }
+
+                    if (Locator.class.isAssignableFrom(fieldType)) {
+                        field.setAccessible(true);
+                        locators.add(field);
+                    } else if (fieldType == Object.class || PMMLObject.class.isAssignableFrom(fieldType)
+                            || Collection.class.isAssignableFrom(fieldType) || Map.class.isAssignableFrom(fieldType)
+                            || JAXBElement.class.isAssignableFrom(fieldType)) {
+                        field.setAccessible(true);
+                        children.add(field);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.openscoring.server.deploy;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.dmg.pmml.PMML;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.ServerSettings;
+import org.openscoring.server.storage.ModelRepository;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses, compiles and registers uploaded models. Synchronous deploys run {@link #install} on the request thread;
+ * asynchronous deploys stage the upload to a file and {@link #submit} it to a small bounded pool, and their progress
+ * is kept for an hour so that clients can poll it.
+ */
+@Slf4j
+@Singleton
+public class ModelDeployer {
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final PmmlParser parser;
+    private final ModelRegistry registry;
+    private final ModelRepository repository;
+    private final long maxBytes;
+    private final int retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<List<Object>, DeploymentStatus> statuses = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .<List<Object>, DeploymentStatus>build()
+            .asMap();
+
+    @Inject
+    public ModelDeployer(final PmmlParser parser,
+                         final ModelRegistry registry,
+                         final ModelRepository repository,
+                         final ServerSettings settings) {
+        this.parser = parser;
+        this.registry = registry;
+        this.repository = repository;
+        this.maxBytes = settings.getDeployMaxBytes();
+        this.retryAfterSeconds = settings.getRetryAfterSeconds();
+        this.executor = new ThreadPoolExecutor(settings.getDeployWorkers(),
+                                               settings.getDeployWorkers(),
+                                               0L,
+                                               TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<Runnable>(settings.getDeployQueueCapacity()),
+                                               new ThreadFactoryBuilder()
+                                                       .setNameFormat("openscoring-deploy-%d")
+                                                       .setDaemon(true)
+                                                       .build());
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Whether a declared request body length is already known to be over the limit.
+     */
+    public boolean exceedsLimit(final long contentLength) {
+        return maxBytes > 0 && contentLength > maxBytes;
+    }
+
+    public InputStream limit(final InputStream is) {
+        return (maxBytes > 0) ? new BoundedInputStream(is, maxBytes) : is;
+    }
+
+    public PMML parse(final InputStream is) throws DeploymentException {
+        try {
+            return parser.parse(limit(is));
+        } catch (Exception e) {
+            throw toDeploymentException(e);
+        }
+    }
+
+    /**
+     * Copies an upload to a synced staging file without parsing it.
+     */
+    public File stage(final InputStream is) throws DeploymentException {
+        try {
+            return repository.stage(limit(is));
+        } catch (IOException e) {
+            throw toDeploymentException(e);
+        }
+    }
+
+    public PMML read(final File staged) throws DeploymentException {
+        try {
+            return repository.read(staged);
+        } catch (Exception e) {
+            throw new DeploymentException(Response.Status.BAD_REQUEST, e);
+        }
+    }
+
+    /**
+     * Compiles and registers a parsed model, moving its staged file into the repository if there is one.
+     */
+    public CompiledModel install(final String id, final Integer version, final PMML pmml, final File staged)
+            throws DeploymentException {
+        final CompiledModel compiledModel;
+
+        try {
+            compiledModel = CompiledModel.compile(pmml);
+        } catch (Exception e) {
+            throw new DeploymentException(Response.Status.BAD_REQUEST, e);
+        }
+
+        if (compiledModel.getThreshold() == null) {
+            throw new DeploymentException(Response.Status.BAD_REQUEST, "Model must have threshold");
+        }
+
+        if ((staged != null && repository.isStored(id, version)) || !registry.register(id, version, compiledModel)) {
+            throw new DeploymentException(Response.Status.CONFLICT, "Model versions cannot be updated");
+        }
+
+        if (staged != null && repository.isEnabled()) {
+            try {
+                repository.commit(staged, id, version);
+            } catch (IOException e) {
+                registry.unregister(id, version);
+                throw new DeploymentException(Response.Status.INTERNAL_SERVER_ERROR, e);
+            }
+
+            repository.writeSnapshot(id, version, compiledModel);
+        }
+
+        return compiledModel;
+    }
+
+    /**
+     * Queues a staged upload for deployment. The staged file is owned by the deployer from here on.
+     *
+     * @throws WebApplicationException with status 503 if the deploy queue is full
+     */
+    public DeploymentStatus submit(final String id, final Integer version, final File staged)
+            throws DeploymentException {
+        final List<Object> key = key(id, version);
+        final DeploymentStatus pending = new DeploymentStatus(id, version, DeploymentStatus.State.PENDING, null);
+        final DeploymentStatus previous = statuses.putIfAbsent(key, pending);
+
+        if (previous != null && !(previous.isDone() && statuses.replace(key, previous, pending))) {
+            repository.discard(staged);
+            throw new DeploymentException(Response.Status.CONFLICT, "Model version is already being deployed");
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deployStaged(key, pending, staged);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            statuses.remove(key, pending);
+            repository.discard(staged);
+            throw new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                                      .header(RETRY_AFTER, retryAfterSeconds)
+                                                      .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN)
+                                                      .entity("Deploy queue is full")
+                                                      .build());
+        }
+
+        return pending;
+    }
+
+    /**
+     * The status of the latest deployment of a version, or <code>null</code> if the version is neither deployed
+     * nor being deployed.
+     */
+    public DeploymentStatus getStatus(final String id, final Integer version) {
+        final DeploymentStatus status = statuses.get(key(id, version));
+
+        if (status != null) {
+            return status;
+        } else if (registry.contains(id, version)) {
+            return new DeploymentStatus(id, version, DeploymentStatus.State.DEPLOYED, null);
+        } else {
+            return null;
+        }
+    }
+
+    public void forget(final String id, final Integer version) {
+        statuses.remove(key(id, version));
+    }
+
+    private void deployStaged(final List<Object> key, final DeploymentStatus pending, final File staged) {
+        final String id = pending.getId();
+        final Integer version = pending.getVersion();
+
+        statuses.put(key, pending.withState(DeploymentStatus.State.LOADING, null));
+
+        try {
+            install(id, version, read(staged), staged);
+            statuses.put(key, pending.withState(DeploymentStatus.State.DEPLOYED, null));
+        } catch (Exception e) {
+            log.warn("Cannot deploy model {} version {}", new Object[]{id, version, e});
+            statuses.put(key, pending.withState(DeploymentStatus.State.FAILED, e.getMessage()));
+        } finally {
+            repository.discard(staged);
+        }
+    }
+
+    private static DeploymentException toDeploymentException(final Exception e) {
+        for (Throwable cause : Throwables.getCausalChain(e)) {
+            if (cause instanceof SizeLimitExceededException) {
+                return new DeploymentException(SizeLimitExceededException.STATUS, cause);
+            }
+        }
+        return new DeploymentException(Response.Status.BAD_REQUEST, e);
+    }
+
+    private static List<Object> key(final String id, final Integer version) {
+        return ImmutableList.<Object>of(id, version);
+    }
+}
@@ -0,0 +1,52 @@
+package org.openscoring.server.deploy;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.dmg.pmml.ImportFilter;
+import org.dmg.pmml.PMML;
+import org.xml.sax.InputSource;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming PMML unmarshaller. The JAXB context is created once and unmarshallers, which are not thread-safe, are
+ * pooled, so a deploy only pays for the SAX pass over its own document. Parsed trees carry no SAX locators, so
+ * they can be serialized.
+ */
+@Singleton
+public class PmmlParser {
+    private static final int POOL_SIZE = 16;
+
+    private final JAXBContext context;
+    private final BlockingQueue<Unmarshaller> unmarshallers = new ArrayBlockingQueue<Unmarshaller>(POOL_SIZE);
+
+    @Inject
+    public PmmlParser() throws JAXBException {
+        this.context = JAXBContext.newInstance(PMML.class);
+    }
+
+    public PMML parse(final InputStream is) throws Exception {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+
+        if (unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+        }
+
+        final PMML pmml;
+
+        try {
+            pmml = (PMML)unmarshaller.unmarshal(ImportFilter.apply(new InputSource(is)));
+        } finally {
+            unmarshallers.offer(unmarshaller);
+        }
+
+        LocatorStripper.strip(pmml);
+
+        return pmml;
+    }
+}
@@ -0,0 +1,20 @@
+package org.openscoring.server.deploy;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+@Getter
+public class SizeLimitExceededException extends IOException {
+    /**
+     * Request Entity Too Large, which JAX-RS 1.1 has no constant for.
+     */
+    public static final int STATUS = 413;
+
+    private final long limit;
+
+    public SizeLimitExceededException(final long limit) {
+        super("Model exceeds the limit of " + limit + " bytes");
+        this.limit = limit;
+    }
+}
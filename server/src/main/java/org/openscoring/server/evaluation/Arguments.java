@@ -0,0 +1,93 @@
+package org.openscoring.server.evaluation;
+
+import org.dmg.pmml.FieldName;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Evaluator arguments stored by slot of an {@link InputBinding}. Implements {@link java.util.Map} only so that it
+ * can be handed to {@link org.jpmml.evaluator.Evaluator#evaluate} without copying into a hash map.
+ */
+public class Arguments extends AbstractMap<FieldName, Object> {
+    private final InputBinding binding;
+    private final Object[] values;
+
+    Arguments(final InputBinding binding, final Object[] values) {
+        this.binding = binding;
+        this.values = values;
+    }
+
+    @Override
+    public Object get(Object key) {
+        final int slot = binding.getSlot(key);
+        return (slot < 0) ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return binding.getSlot(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * A copy of the bound values in slot order. Requests that bind to equal arguments have equal value lists, so the
+     * list can serve as a lookup key.
+     */
+    public List<Object> values() {
+        return Collections.unmodifiableList(Arrays.asList(values.clone()));
+    }
+
+    Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Set<Entry<FieldName, Object>> entrySet() {
+        return new AbstractSet<Entry<FieldName, Object>>() {
+            @Override
+            public Iterator<Entry<FieldName, Object>> iterator() {
+                return new Iterator<Entry<FieldName, Object>>() {
+                    private int slot = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < values.length;
+                    }
+
+                    @Override
+                    public Entry<FieldName, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        final Entry<FieldName, Object> entry = new SimpleImmutableEntry<FieldName, Object>(
+                                binding.getField(slot), values[slot]);
+                        slot++;
+                        return entry;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
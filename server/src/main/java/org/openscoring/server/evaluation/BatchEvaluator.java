@@ -0,0 +1,91 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.openscoring.server.ServerSettings;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Scores large batches in chunks on a dedicated, fixed-size pool. The first chunk runs on the calling thread and
+ * results are always returned in input order.
+ */
+@Singleton
+public class BatchEvaluator {
+    private final ListeningExecutorService executor;
+    private final int parallelism;
+    private final int minChunkSize;
+
+    @Inject
+    public BatchEvaluator(final ServerSettings settings) {
+        this.parallelism = settings.getEffectiveBatchParallelism();
+        this.minChunkSize = Math.max(1, settings.getBatchMinChunkSize());
+        this.executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(
+                parallelism,
+                new ThreadFactoryBuilder().setNameFormat("openscoring-batch-%d").setDaemon(true).build()));
+    }
+
+    public <I, O> List<O> evaluate(final List<I> inputs, final Function<? super I, ? extends O> function) {
+        final int size = inputs.size();
+
+        if (parallelism < 2 || size < 2 * minChunkSize) {
+            return evaluateChunk(inputs, function);
+        }
+
+        final int chunkSize = Math.max(minChunkSize, (size + parallelism - 1) / parallelism);
+        final List<List<I>> chunks = Lists.partition(inputs, chunkSize);
+        final List<ListenableFuture<List<O>>> futures = Lists.newArrayListWithCapacity(chunks.size() - 1);
+
+        for (final List<I> chunk : chunks.subList(1, chunks.size())) {
+            futures.add(executor.submit(new Callable<List<O>>() {
+                @Override
+                public List<O> call() {
+                    return evaluateChunk(chunk, function);
+                }
+            }));
+        }
+
+        final ListenableFuture<List<List<O>>> remaining = Futures.allAsList(futures);
+        final List<O> results = Lists.newArrayListWithCapacity(size);
+
+        try {
+            results.addAll(evaluateChunk(chunks.get(0), function));
+
+            for (List<O> chunkResults : remaining.get()) {
+                results.addAll(chunkResults);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating batch", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException)cause : new RuntimeException(cause);
+        } finally {
+            for (ListenableFuture<List<O>> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return results;
+    }
+
+    private static <I, O> List<O> evaluateChunk(final List<I> chunk, final Function<? super I, ? extends O> function) {
+        final List<O> results = Lists.newArrayListWithCapacity(chunk.size());
+
+        for (I input : chunk) {
+            results.add(function.apply(input));
+        }
+
+        return results;
+    }
+}
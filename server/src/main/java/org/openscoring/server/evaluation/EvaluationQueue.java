@@ -0,0 +1,123 @@
+package org.openscoring.server.evaluation;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.openscoring.server.ServerSettings;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for evaluation requests. At most a fixed number of evaluations run at once and a bounded number
+ * more wait for their turn; once that is exhausted further requests are rejected immediately with 503 and a
+ * Retry-After header instead of piling up inside the servlet container.
+ *
+ * Jersey 1.x cannot suspend a response, so evaluations run on the container thread that received them, and a
+ * waiting request waits on that thread too. Admission is therefore limited to at most three quarters of the
+ * container's threads, leaving the rest for health checks, metrics and deploys; otherwise the container pool would
+ * run out before the queue fills and requests would pile up inside the container after all.
+ */
+@Slf4j
+@Singleton
+public class EvaluationQueue {
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final Semaphore admissions;
+    private final Semaphore workers;
+    private final int workerCount;
+    private final int capacity;
+    private final int retryAfterSeconds;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Inject
+    public EvaluationQueue(final ServerSettings settings) {
+        final int workerCount = settings.getEffectiveQueueWorkers();
+
+        final int admissionLimit = settings.getContainerThreads() * 3 / 4;
+
+        if (workerCount + settings.getQueueCapacity() > admissionLimit) {
+            log.warn("Evaluation workers ({}) plus queue capacity ({}) exceed three quarters of the {} container threads, "
+                     + "admitting at most {} requests at a time",
+                     new Object[]{workerCount, settings.getQueueCapacity(), settings.getContainerThreads(), admissionLimit});
+        }
+
+        this.admissions = new Semaphore(Math.max(1, Math.min(workerCount + settings.getQueueCapacity(), admissionLimit)));
+        this.workers = new Semaphore(workerCount, true);
+        this.workerCount = workerCount;
+        this.capacity = settings.getQueueCapacity();
+        this.retryAfterSeconds = settings.getRetryAfterSeconds();
+    }
+
+    /**
+     * Runs the task on the calling thread once a worker slot is free.
+     *
+     * @throws WebApplicationException with status 503 if the queue is full
+     */
+    public <T> T execute(final Callable<T> task) {
+        if (!admissions.tryAcquire()) {
+            throw reject();
+        }
+
+        try {
+            acquireWorker();
+
+            try {
+                return task.call();
+            } finally {
+                workers.release();
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            admissions.release();
+        }
+    }
+
+    private void acquireWorker() {
+        waiting.incrementAndGet();
+
+        try {
+            workers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebApplicationException(e, Response.Status.SERVICE_UNAVAILABLE);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private WebApplicationException reject() {
+        rejected.incrementAndGet();
+        return new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                                                   .header(RETRY_AFTER, retryAfterSeconds)
+                                                   .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN)
+                                                   .entity("Evaluation queue is full")
+                                                   .build());
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getActiveCount() {
+        return workerCount - workers.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,166 @@
+package org.openscoring.server.evaluation;
+
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.DataType;
+
+/**
+ * Converts a raw JSON request value into the data type of its field before it is handed to
+ * {@link org.jpmml.evaluator.Evaluator#prepare}. A converter is chosen once per field from the model's data
+ * dictionary, and values that cannot be represented in the field's type are rejected with an
+ * {@link InvalidInputException}. Missing values stay <code>null</code>.
+ */
+public abstract class FieldConverter {
+
+    public abstract Object convert(Object value);
+
+    public static final FieldConverter IDENTITY = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            return value;
+        }
+    };
+
+    /**
+     * JSON booleans are handed to the evaluator in their string form, which is how PMML spells boolean and
+     * categorical values. Used for fields without a declared type and for types that are parsed from strings.
+     */
+    public static final FieldConverter BOOLEAN_AS_STRING = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            if (value instanceof Boolean) {
+                return value.toString();
+            }
+
+            return value;
+        }
+    };
+
+    public static final FieldConverter STRING = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            return (value != null) ? value.toString() : null;
+        }
+    };
+
+    /**
+     * Numbers and numeric strings are accepted alike when they hold an integral value in the range of an int, so
+     * <code>1.0</code> and <code>"1.0"</code> both bind to 1 while <code>1.5</code> and <code>"1.5"</code> are both
+     * rejected.
+     */
+    public static final FieldConverter INTEGER = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            if (value == null || value instanceof Integer) {
+                return value;
+            }
+
+            Double number = null;
+
+            if (value instanceof Number) {
+                number = ((Number)value).doubleValue();
+            } else if (value instanceof String) {
+                try {
+                    number = Double.valueOf(((String)value).trim());
+                } catch (NumberFormatException ignored) {
+                    // Rejected below
+                }
+            }
+
+            if (number != null && number == Math.rint(number)
+                    && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return number.intValue();
+            }
+
+            throw new InvalidInputException(null, value, "integer");
+        }
+    };
+
+    public static final FieldConverter FLOAT = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            if (value == null || value instanceof Float) {
+                return value;
+            }
+
+            if (value instanceof Number) {
+                return ((Number)value).floatValue();
+            } else if (value instanceof String) {
+                try {
+                    return Float.valueOf(((String)value).trim());
+                } catch (NumberFormatException ignored) {
+                    // Rejected below
+                }
+            }
+
+            throw new InvalidInputException(null, value, "float");
+        }
+    };
+
+    public static final FieldConverter DOUBLE = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            if (value == null || value instanceof Double) {
+                return value;
+            }
+
+            if (value instanceof Number) {
+                return ((Number)value).doubleValue();
+            } else if (value instanceof String) {
+                try {
+                    return Double.valueOf(((String)value).trim());
+                } catch (NumberFormatException ignored) {
+                    // Rejected below
+                }
+            }
+
+            throw new InvalidInputException(null, value, "double");
+        }
+    };
+
+    /**
+     * Booleans are passed in the "true"/"false" form PMML uses; strings must already be one of the two.
+     */
+    public static final FieldConverter BOOLEAN = new FieldConverter() {
+        @Override
+        public Object convert(Object value) {
+            if (value == null) {
+                return null;
+            }
+
+            if (value instanceof Boolean) {
+                return value.toString();
+            } else if (value instanceof String) {
+                final String string = ((String)value).trim();
+
+                if (string.equalsIgnoreCase("true") || string.equalsIgnoreCase("false")) {
+                    return string.toLowerCase();
+                }
+            }
+
+            throw new InvalidInputException(null, value, "boolean");
+        }
+    };
+
+    public static FieldConverter forDataField(final DataField dataField) {
+        final DataType dataType = (dataField != null) ? dataField.getDataType() : null;
+
+        if (dataType == null) {
+            return BOOLEAN_AS_STRING;
+        }
+
+        switch (dataType) {
+            case STRING:
+                return STRING;
+            case INTEGER:
+                return INTEGER;
+            case FLOAT:
+                return FLOAT;
+            case DOUBLE:
+                return DOUBLE;
+            case BOOLEAN:
+                return BOOLEAN;
+            default:
+                return BOOLEAN_AS_STRING;
+        }
+    }
+}
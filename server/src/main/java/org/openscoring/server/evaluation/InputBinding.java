@@ -0,0 +1,161 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.collect.Maps;
+import org.dmg.pmml.DataDictionary;
+import org.dmg.pmml.DataField;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The binding plan of a compiled model: every active field gets a fixed slot and a converter that is resolved
+ * once from its {@link DataField}, so binding a request is a single pass over an array. Values that do not fit the
+ * field's data type fail the binding with an {@link InvalidInputException} naming the field.
+ */
+public class InputBinding {
+    private final Evaluator evaluator;
+    private final FieldName[] fields;
+    private final String[] keys;
+    private final FieldConverter[] converters;
+    private final Map<FieldName, Integer> slots;
+    private final ThreadLocal<Arguments> buffers = new ThreadLocal<Arguments>() {
+        @Override
+        protected Arguments initialValue() {
+            return newArguments();
+        }
+    };
+
+    protected InputBinding(final Evaluator evaluator,
+                           final FieldName[] fields,
+                           final FieldConverter[] converters) {
+        this.evaluator = evaluator;
+        this.fields = fields;
+        this.converters = converters;
+        this.keys = new String[fields.length];
+        this.slots = Maps.newHashMapWithExpectedSize(fields.length);
+
+        for (int i = 0; i < fields.length; i++) {
+            keys[i] = fields[i].getValue();
+            slots.put(fields[i], i);
+        }
+    }
+
+    public static InputBinding create(final PMML pmml, final Evaluator evaluator) {
+        final List<FieldName> activeFields = evaluator.getActiveFields();
+        final Map<FieldName, DataField> dataFields = Maps.newHashMap();
+        final DataDictionary dataDictionary = pmml.getDataDictionary();
+
+        if (dataDictionary != null) {
+            for (DataField dataField : dataDictionary.getDataFields()) {
+                dataFields.put(dataField.getName(), dataField);
+            }
+        }
+
+        final FieldName[] fields = activeFields.toArray(new FieldName[activeFields.size()]);
+        final FieldConverter[] converters = new FieldConverter[fields.length];
+
+        for (int i = 0; i < fields.length; i++) {
+            converters[i] = FieldConverter.forDataField(dataFields.get(fields[i]));
+        }
+
+        return new InputBinding(evaluator, fields, converters);
+    }
+
+    /**
+     * Binds the request parameters into a new {@link Arguments} instance. The parameters are only read, never
+     * modified.
+     */
+    public Arguments bind(final Map<String, ?> parameters) {
+        return bind(parameters, newArguments());
+    }
+
+    /**
+     * Binds the request parameters into this thread's argument buffer. The returned instance is overwritten by the
+     * next call on the same thread, so it must not outlive the evaluation it was bound for.
+     */
+    public Arguments bindLocal(final Map<String, ?> parameters) {
+        return bind(parameters, buffers.get());
+    }
+
+    /**
+     * Binds the request parameters into <code>arguments</code>, overwriting every slot, and returns it.
+     */
+    public Arguments bind(Map<String, ?> parameters, final Arguments arguments) {
+        if (parameters == null) {
+            parameters = Collections.emptyMap();
+        }
+
+        final Object[] values = arguments.getValues();
+
+        for (int i = 0; i < fields.length; i++) {
+            final Object value = convert(i, parameters.get(keys[i]));
+            values[i] = evaluator.prepare(fields[i], value);
+        }
+
+        return arguments;
+    }
+
+    /**
+     * A new argument buffer for {@link #bind(Map, Arguments)}.
+     */
+    public Arguments newArguments() {
+        return new Arguments(this, new Object[fields.length]);
+    }
+
+    /**
+     * Resolves the slot of every column of a columnar batch once, -1 marking columns that are not active fields.
+     */
+    public int[] getSlots(final List<String> columnFields) {
+        final int[] columnSlots = new int[columnFields.size()];
+
+        for (int i = 0; i < columnSlots.length; i++) {
+            columnSlots[i] = getSlot(new FieldName(columnFields.get(i)));
+        }
+
+        return columnSlots;
+    }
+
+    /**
+     * Binds one row of a columnar batch, using the column slots from {@link #getSlots(List)}.
+     */
+    public Arguments bind(final int[] columnSlots, final List<? extends List<?>> columns, final int row) {
+        final Object[] values = new Object[fields.length];
+
+        for (int i = 0; i < columnSlots.length; i++) {
+            if (columnSlots[i] >= 0) {
+                values[columnSlots[i]] = columns.get(i).get(row);
+            }
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = evaluator.prepare(fields[i], convert(i, values[i]));
+        }
+
+        return new Arguments(this, values);
+    }
+
+    private Object convert(final int slot, final Object value) {
+        try {
+            return converters[slot].convert(value);
+        } catch (InvalidInputException e) {
+            throw e.withField(keys[slot]);
+        }
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    FieldName getField(int slot) {
+        return fields[slot];
+    }
+
+    int getSlot(Object field) {
+        final Integer slot = slots.get(field);
+        return (slot != null) ? slot : -1;
+    }
+}
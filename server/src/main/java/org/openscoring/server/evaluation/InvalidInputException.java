@@ -0,0 +1,34 @@
+package org.openscoring.server.evaluation;
+
+import lombok.Getter;
+
+/**
+ * A request value that cannot be coerced to the data type of its field. Resources answer it with 400.
+ */
+@Getter
+public class InvalidInputException extends IllegalArgumentException {
+    private final String field;
+    private final Object value;
+    private final String expected;
+
+    public InvalidInputException(final String field, final Object value, final String expected) {
+        super(format(field, value, expected));
+        this.field = field;
+        this.value = value;
+        this.expected = expected;
+    }
+
+    InvalidInputException withField(final String field) {
+        return new InvalidInputException(field, value, expected);
+    }
+
+    private static String format(final String field, final Object value, final String expected) {
+        final String quoted = (value instanceof String) ? "\"" + value + "\"" : String.valueOf(value);
+
+        if (field == null) {
+            return "Invalid value " + quoted + ", expected " + expected;
+        }
+
+        return "Invalid value " + quoted + " for field \"" + field + "\", expected " + expected;
+    }
+}
@@ -0,0 +1,17 @@
+package org.openscoring.server.evaluation;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+@Provider
+public class InvalidInputExceptionMapper implements ExceptionMapper<InvalidInputException> {
+    @Override
+    public Response toResponse(final InvalidInputException exception) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                       .type(MediaType.TEXT_PLAIN)
+                       .entity(exception.getMessage())
+                       .build();
+    }
+}
@@ -0,0 +1,141 @@
+package org.openscoring.server.evaluation;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Getter;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.Threshold;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Evaluation metrics and score distributions of each deployed model version. They are created when a version is
+ * deployed or first used and dropped when it is undeployed; publishing them is left to the hosting server.
+ */
+@Singleton
+public class ModelMetrics implements ModelRegistry.Listener {
+    private final ModelRegistry registry;
+    private final ConcurrentMap<List<Object>, VersionMetrics> metrics = Maps.newConcurrentMap();
+
+    @Inject
+    public ModelMetrics(final ModelRegistry registry) {
+        this.registry = registry;
+        registry.addListener(this);
+    }
+
+    /**
+     * The metrics of a version. Versions that are no longer deployed get fresh metrics that are not kept.
+     */
+    public VersionMetrics get(final String id, final Integer version) {
+        final List<Object> key = key(id, version);
+        final VersionMetrics existing = metrics.get(key);
+
+        if (existing != null) {
+            return existing;
+        }
+
+        final VersionMetrics created = new VersionMetrics();
+
+        if (!registry.contains(id, version)) {
+            return created;
+        }
+
+        final VersionMetrics previous = metrics.putIfAbsent(key, created);
+        if (previous != null) {
+            return previous;
+        }
+
+        // The version may have been undeployed, and onUnregister run, since it was checked above
+        if (!registry.contains(id, version)) {
+            metrics.remove(key, created);
+        }
+
+        return created;
+    }
+
+    @Override
+    public void onRegister(final String id, final Integer version, final CompiledModel model) {
+        get(id, version);
+    }
+
+    @Override
+    public void onUnregister(final String id, final Integer version, final CompiledModel model) {
+        metrics.remove(key(id, version));
+    }
+
+    private static List<Object> key(final String id, final Integer version) {
+        return ImmutableList.<Object>of(id, version);
+    }
+
+    @Getter
+    public static class VersionMetrics {
+        /**
+         * Time spent evaluating single records.
+         */
+        private final Timer evaluations = new Timer();
+        /**
+         * Records evaluated.
+         */
+        private final Meter rows = new Meter();
+        /**
+         * Number of records per request.
+         */
+        private final Histogram batchSizes = new Histogram(new ExponentiallyDecayingReservoir());
+        /**
+         * Records that failed to evaluate.
+         */
+        private final Counter errors = new Counter();
+        /**
+         * Distribution of the scores of evaluated records.
+         */
+        private final ScoreSketch scores = new ScoreSketch();
+        /**
+         * Scores above the "trueIfAbove" bound of the threshold.
+         */
+        private final Counter aboveThreshold = new Counter();
+        /**
+         * Scores below the "trueIfBelow" bound of the threshold.
+         */
+        private final Counter belowThreshold = new Counter();
+        /**
+         * Time spent evaluating records as a shadow of another version.
+         */
+        private final Timer shadowEvaluations = new Timer();
+        /**
+         * Shadow results whose predicted fields matched the primary result.
+         */
+        private final Counter shadowAgreements = new Counter();
+        /**
+         * Shadow results whose predicted fields differed from the primary result.
+         */
+        private final Counter shadowDisagreements = new Counter();
+        /**
+         * Records that failed to evaluate as a shadow.
+         */
+        private final Counter shadowErrors = new Counter();
+        /**
+         * Distribution of the shadow score minus the primary score.
+         */
+        private final ScoreSketch shadowScoreDeltas = new ScoreSketch();
+
+        public void recordScore(final double score, final Threshold threshold) {
+            scores.update(score);
+
+            if (threshold.getTrueIfAbove() != null && score > threshold.getTrueIfAbove()) {
+                aboveThreshold.inc();
+            }
+            if (threshold.getTrueIfBelow() != null && score < threshold.getTrueIfBelow()) {
+                belowThreshold.inc();
+            }
+        }
+    }
+}
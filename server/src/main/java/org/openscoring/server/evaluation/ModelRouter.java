@@ -0,0 +1,227 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routing policies of the unversioned evaluation endpoints by model id. Models without a policy keep evaluating
+ * every deployed version. Policies are held in memory only and lose undeployed versions as they go.
+ */
+@Singleton
+public class ModelRouter implements ModelRegistry.Listener {
+    private static final HashFunction HASH = Hashing.murmur3_32();
+
+    private final ModelRegistry registry;
+    private final ConcurrentMap<String, Route> routes = Maps.newConcurrentMap();
+    private final Random random = new Random();
+
+    @Inject
+    public ModelRouter(final ModelRegistry registry) {
+        this.registry = registry;
+        registry.addListener(this);
+    }
+
+    /**
+     * Replaces the policy of a model.
+     *
+     * @throws IllegalArgumentException if the policy is malformed or names a version that is not deployed
+     */
+    public void setPolicy(final String id, final RoutingPolicy policy) {
+        routes.put(id, Route.create(policy, registry.getVersions(id)));
+    }
+
+    /**
+     * @return the policy of a model, or <code>null</code> if it has none
+     */
+    public RoutingPolicy getPolicy(final String id) {
+        final Route route = routes.get(id);
+        return (route != null) ? route.toPolicy() : null;
+    }
+
+    /**
+     * The shadow versions of a model, empty if it has no policy or its policy has none.
+     */
+    public ImmutableSortedSet<Integer> getShadows(final String id) {
+        final Route route = routes.get(id);
+        return (route != null) ? route.shadows : ImmutableSortedSet.<Integer>of();
+    }
+
+    public boolean removePolicy(final String id) {
+        return routes.remove(id) != null;
+    }
+
+    /**
+     * Chooses the version that evaluates a record.
+     *
+     * @param requestId the id of the record, or <code>null</code> to choose at random
+     * @return the version, or <code>null</code> if the model has no policy and all of its versions should be used
+     */
+    public Integer route(final String id, final String requestId) {
+        final Route route = routes.get(id);
+
+        if (route == null) {
+            return null;
+        }
+
+        final int hash = (requestId != null) ? HASH.hashString(requestId).asInt() : random.nextInt();
+
+        return route.select(hash);
+    }
+
+    @Override
+    public void onRegister(final String id, final Integer version, final CompiledModel model) {
+    }
+
+    @Override
+    public void onUnregister(final String id, final Integer version, final CompiledModel model) {
+        while (true) {
+            final Route route = routes.get(id);
+
+            if (route == null || !(route.weights.containsKey(version) || route.shadows.contains(version))) {
+                return;
+            }
+
+            final Route updated = route.without(version);
+
+            if ((updated == null) ? routes.remove(id, route) : routes.replace(id, route, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static class Route {
+        final boolean pinned;
+        final ImmutableSortedMap<Integer, Integer> weights;
+        final ImmutableSortedSet<Integer> shadows;
+        final int totalWeight;
+
+        Route(final boolean pinned,
+              final ImmutableSortedMap<Integer, Integer> weights,
+              final ImmutableSortedSet<Integer> shadows) {
+            int totalWeight = 0;
+            for (Integer weight : weights.values()) {
+                totalWeight += weight;
+            }
+
+            this.pinned = pinned;
+            this.weights = weights;
+            this.shadows = shadows;
+            this.totalWeight = totalWeight;
+        }
+
+        static Route create(final RoutingPolicy policy, final Map<Integer, CompiledModel> deployed) {
+            if (policy == null || (policy.getVersion() == null) == (policy.getWeights() == null)) {
+                throw new IllegalArgumentException("Expected either a version or weights");
+            }
+
+            final ImmutableSortedSet<Integer> shadows = (policy.getShadows() != null)
+                    ? ImmutableSortedSet.copyOf(policy.getShadows())
+                    : ImmutableSortedSet.<Integer>of();
+
+            for (Integer shadow : shadows) {
+                checkDeployed(shadow, deployed);
+            }
+
+            if (policy.getVersion() != null) {
+                checkDeployed(policy.getVersion(), deployed);
+                return new Route(true, ImmutableSortedMap.of(policy.getVersion(), 1), shadows);
+            }
+
+            if (policy.getWeights().isEmpty()) {
+                throw new IllegalArgumentException("Expected at least one weighted version");
+            }
+
+            long totalWeight = 0;
+
+            for (Map.Entry<Integer, Integer> entry : policy.getWeights().entrySet()) {
+                checkDeployed(entry.getKey(), deployed);
+
+                if (entry.getValue() == null || entry.getValue() <= 0) {
+                    throw new IllegalArgumentException("Weight of version " + entry.getKey() + " must be positive");
+                }
+                totalWeight += entry.getValue();
+            }
+
+            if (totalWeight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Weights are too large");
+            }
+
+            return new Route(false, ImmutableSortedMap.copyOf(policy.getWeights()), shadows);
+        }
+
+        Integer select(final int hash) {
+            if (weights.size() == 1) {
+                return weights.firstKey();
+            }
+
+            int point = (hash & Integer.MAX_VALUE) % totalWeight;
+
+            for (Map.Entry<Integer, Integer> entry : weights.entrySet()) {
+                point -= entry.getValue();
+                if (point < 0) {
+                    return entry.getKey();
+                }
+            }
+
+            return weights.lastKey();
+        }
+
+        /**
+         * @return the route without a version, or <code>null</code> if no routed version is left
+         */
+        Route without(final Integer version) {
+            final ImmutableSortedMap.Builder<Integer, Integer> remaining = ImmutableSortedMap.naturalOrder();
+
+            for (Map.Entry<Integer, Integer> entry : weights.entrySet()) {
+                if (!entry.getKey().equals(version)) {
+                    remaining.put(entry);
+                }
+            }
+
+            final ImmutableSortedMap<Integer, Integer> built = remaining.build();
+            final ImmutableSortedSet<Integer> remainingShadows = ImmutableSortedSet.copyOf(
+                    Sets.difference(shadows, Collections.singleton(version)));
+
+            return built.isEmpty() ? null : new Route(pinned, built, remainingShadows);
+        }
+
+        RoutingPolicy toPolicy() {
+            final RoutingPolicy policy = new RoutingPolicy();
+
+            if (pinned) {
+                policy.setVersion(weights.firstKey());
+            } else {
+                final SortedMap<Integer, Integer> copy = Maps.newTreeMap(weights);
+                policy.setWeights(copy);
+            }
+
+            if (!shadows.isEmpty()) {
+                final SortedSet<Integer> copy = Sets.newTreeSet(shadows);
+                policy.setShadows(copy);
+            }
+
+            return policy;
+        }
+
+        private static void checkDeployed(final Integer version, final Map<Integer, CompiledModel> deployed) {
+            if (version == null || !deployed.containsKey(version)) {
+                throw new IllegalArgumentException("Version " + version + " is not deployed");
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonProcessingException;
+import org.codehaus.jackson.map.MappingIterator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.openscoring.common.EvaluationRequest;
+import org.openscoring.server.responses.VersionedEvaluationResponse;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Scores a newline-delimited JSON stream of {@link EvaluationRequest} records one at a time, writing every
+ * result line as soon as it has been computed. Memory use does not depend on the number of records.
+ *
+ * A record that cannot be scored produces a response line carrying only "errors"; a record that cannot be parsed
+ * produces such a line and ends the stream.
+ */
+@Slf4j
+public class NdjsonBatchStream implements StreamingOutput {
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    private static final int NEWLINE = '\n';
+
+    private final String id;
+    private final Integer version;
+    private final InputStream input;
+    private final Function<EvaluationRequest, VersionedEvaluationResponse> function;
+
+    public NdjsonBatchStream(final String id,
+                             final Integer version,
+                             final InputStream input,
+                             final Function<EvaluationRequest, VersionedEvaluationResponse> function) {
+        this.id = id;
+        this.version = version;
+        this.input = input;
+        this.function = function;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        final JsonParser parser = MAPPER.getJsonFactory().createJsonParser(input);
+        final MappingIterator<EvaluationRequest> requests = MAPPER.readValues(parser, EvaluationRequest.class);
+        boolean first = true;
+
+        try {
+            while (requests.hasNextValue()) {
+                final EvaluationRequest request = requests.nextValue();
+                VersionedEvaluationResponse response;
+
+                try {
+                    response = function.apply(request);
+                } catch (Exception e) {
+                    log.warn("Failed to evaluate streamed record for model " + id + " version " + version, e);
+                    response = failure(e);
+                }
+
+                writeLine(output, response);
+
+                if (first) {
+                    output.flush();
+                    first = false;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            writeLine(output, failure(e));
+        } finally {
+            parser.close();
+        }
+
+        output.flush();
+    }
+
+    private VersionedEvaluationResponse failure(Exception e) {
+        final VersionedEvaluationResponse response = new VersionedEvaluationResponse(id);
+
+        response.setErrors(ImmutableMap.of(version, message(e)));
+        return response;
+    }
+
+    /**
+     * Some failures, such as rejected input, carry their message as the response entity rather than as a cause.
+     */
+    private static String message(Exception e) {
+        if (e instanceof WebApplicationException) {
+            final WebApplicationException wae = (WebApplicationException)e;
+
+            if (wae.getCause() == null && wae.getResponse().getEntity() instanceof String) {
+                return (String)wae.getResponse().getEntity();
+            }
+        }
+
+        final Throwable cause = (e instanceof WebApplicationException && e.getCause() != null) ? e.getCause() : e;
+
+        return Objects.firstNonNull(cause.getMessage(), cause.getClass().getSimpleName());
+    }
+
+    private static void writeLine(OutputStream output, VersionedEvaluationResponse response) throws IOException {
+        MAPPER.writeValue(output, response);
+        output.write(NEWLINE);
+    }
+}
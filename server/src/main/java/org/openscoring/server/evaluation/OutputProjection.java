@@ -0,0 +1,103 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import lombok.EqualsAndHashCode;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.EvaluatorUtil;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result fields a caller asked for with the <code>fields</code> query parameter. Only those fields are decoded
+ * and serialized; {@link #ALL} keeps the full result.
+ */
+@EqualsAndHashCode
+public class OutputProjection {
+    /**
+     * The alias under which the field named by the model's "useAsScore" header extension is also returned.
+     */
+    public static final String SCORE_FIELD = "score";
+
+    public static final OutputProjection ALL = new OutputProjection(null);
+
+    private static final Splitter SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final ImmutableSet<String> fields;
+
+    private OutputProjection(final ImmutableSet<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parses a comma-separated list of field names, where no list means all fields.
+     */
+    public static OutputProjection parse(final String fields) {
+        if (fields == null) {
+            return ALL;
+        }
+
+        final ImmutableSet<String> names = ImmutableSet.copyOf(SPLITTER.split(fields));
+        return names.isEmpty() ? ALL : new OutputProjection(names);
+    }
+
+    public boolean includes(final String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Decodes the selected fields of an evaluation result and adds the score alias if it is selected.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> decode(final Map<FieldName, ?> result, final String scoreKey) {
+        final Map<String, Object> decoded;
+
+        if (fields == null) {
+            // XXX
+            decoded = (Map)EvaluatorUtil.decode(result);
+
+            if ((scoreKey != null) && (decoded.containsKey(scoreKey))) {
+                decoded.put(SCORE_FIELD, decoded.get(scoreKey));
+            }
+
+            return decoded;
+        }
+
+        decoded = new LinkedHashMap<String, Object>();
+
+        for (Map.Entry<FieldName, ?> entry : result.entrySet()) {
+            final String name = entry.getKey().getValue();
+            final boolean selected = fields.contains(name);
+            final boolean score = name.equals(scoreKey) && fields.contains(SCORE_FIELD);
+
+            if (selected || score) {
+                final Object value = EvaluatorUtil.decode(entry.getValue());
+
+                if (selected) {
+                    decoded.put(name, value);
+                }
+                if (score) {
+                    decoded.put(SCORE_FIELD, value);
+                }
+            }
+        }
+
+        return decoded;
+    }
+
+    public List<String> select(final List<String> names) {
+        if (fields == null) {
+            return names;
+        }
+
+        final ImmutableSet.Builder<String> selected = ImmutableSet.builder();
+        for (String name : names) {
+            if (fields.contains(name)) {
+                selected.add(name);
+            }
+        }
+        return selected.build().asList();
+    }
+}
@@ -0,0 +1,265 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.openscoring.common.EvaluationRequest;
+import org.openscoring.server.ServerSettings;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects concurrent single-record requests for the same model version into small batches.
+ *
+ * The first request of a batch becomes its leader. If no other request for the version is in progress it scores
+ * its record right away; otherwise it waits for at most the configured window, or until the batch is full, and then
+ * runs the whole batch through the {@link EvaluationQueue} as one task. Every other caller only waits for its own
+ * result.
+ *
+ * Records of different groups, such as different output projections, share a batch but are scored by separate calls
+ * of their own group's batch function. If a call fails because of invalid input, its records are retried one at a
+ * time, so a bad record does not fail the rest of its group; any other failure is reported to every record of the
+ * group.
+ */
+@Singleton
+public class RequestCoalescer {
+    private final EvaluationQueue evaluationQueue;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ConcurrentMap<List<Object>, Batcher> batchers = Maps.newConcurrentMap();
+
+    @Inject
+    public RequestCoalescer(final EvaluationQueue evaluationQueue, final ServerSettings settings) {
+        this.evaluationQueue = evaluationQueue;
+        this.enabled = settings.isCoalescingEnabled();
+        this.windowMicros = settings.getCoalescingWindowMicros();
+        this.maxBatchSize = Math.max(1, settings.getCoalescingMaxBatchSize());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param group records are only scored together with records of an equal group
+     * @param function scores a list of records, returning one result per record in the same order
+     */
+    public <T> T evaluate(final String id,
+                          final Integer version,
+                          final Object group,
+                          final EvaluationRequest request,
+                          final Function<List<EvaluationRequest>, List<T>> function) {
+        final List<Object> key = ImmutableList.<Object>of(id, version);
+        Batcher batcher = batchers.get(key);
+
+        if (batcher == null) {
+            final Batcher created = new Batcher();
+            batcher = batchers.putIfAbsent(key, created);
+
+            if (batcher == null) {
+                batcher = created;
+            }
+        }
+
+        return batcher.submit(group, request, function);
+    }
+
+    public void invalidate(final String id, final Integer version) {
+        batchers.remove(ImmutableList.<Object>of(id, version));
+    }
+
+    private static class Pending {
+        private final Object group;
+        private final EvaluationRequest request;
+        private final Function<List<EvaluationRequest>, ? extends List<?>> function;
+        private final SettableFuture<Object> future = SettableFuture.create();
+
+        private Pending(final Object group,
+                        final EvaluationRequest request,
+                        final Function<List<EvaluationRequest>, ? extends List<?>> function) {
+            this.group = group;
+            this.request = request;
+            this.function = function;
+        }
+    }
+
+    private static class Batch {
+        private final List<Pending> pending;
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private Batch(int capacity) {
+            this.pending = Lists.newArrayListWithCapacity(capacity);
+        }
+    }
+
+    private class Batcher {
+        private final AtomicInteger active = new AtomicInteger();
+        private Batch current;
+
+        @SuppressWarnings("unchecked")
+        <T> T submit(final Object group,
+                     final EvaluationRequest request,
+                     final Function<List<EvaluationRequest>, List<T>> function) {
+            final Pending pending = new Pending(group, request, function);
+            final Batch batch;
+            final boolean leader;
+
+            active.incrementAndGet();
+
+            try {
+                synchronized (this) {
+                    leader = (current == null);
+
+                    if (leader) {
+                        current = new Batch(maxBatchSize);
+                    }
+
+                    batch = current;
+                    batch.pending.add(pending);
+
+                    if (batch.pending.size() >= maxBatchSize) {
+                        current = null;
+                        batch.full.countDown();
+                    }
+                }
+
+                if (leader) {
+                    // Waiting only pays off when other requests are around to join the batch
+                    if (active.get() > 1) {
+                        try {
+                            batch.full.await(windowMicros, TimeUnit.MICROSECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    synchronized (this) {
+                        if (current == batch) {
+                            current = null;
+                        }
+                    }
+
+                    flush(batch);
+                }
+
+                try {
+                    return (T)pending.future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for evaluation", e);
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    throw (cause instanceof RuntimeException) ? (RuntimeException)cause : new RuntimeException(cause);
+                }
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        private void flush(final Batch batch) {
+            final List<Pending> pending;
+
+            synchronized (this) {
+                pending = batch.pending;
+            }
+
+            try {
+                evaluationQueue.execute(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (List<Pending> group : groups(pending)) {
+                            score(group);
+                        }
+                        return null;
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (Pending p : pending) {
+                    p.future.setException(e);
+                }
+            }
+        }
+
+        private void score(final List<Pending> pending) {
+            final Function<List<EvaluationRequest>, ? extends List<?>> function = pending.get(0).function;
+            final List<EvaluationRequest> requests = Lists.newArrayListWithCapacity(pending.size());
+            for (Pending p : pending) {
+                requests.add(p.request);
+            }
+
+            try {
+                final List<?> results = function.apply(requests);
+
+                for (int i = 0; i < pending.size(); i++) {
+                    pending.get(i).future.set(results.get(i));
+                }
+                return;
+            } catch (Exception e) {
+                if (pending.size() == 1 || !isInvalidInput(e)) {
+                    for (Pending p : pending) {
+                        p.future.setException(e);
+                    }
+                    return;
+                }
+            }
+
+            for (Pending p : pending) {
+                try {
+                    p.future.set(function.apply(Collections.singletonList(p.request)).get(0));
+                } catch (Exception e) {
+                    p.future.setException(e);
+                }
+            }
+        }
+    }
+
+    private static Collection<List<Pending>> groups(final List<Pending> pending) {
+        final Map<Object, List<Pending>> groups = Maps.newLinkedHashMap();
+
+        for (Pending p : pending) {
+            List<Pending> group = groups.get(p.group);
+            if (group == null) {
+                group = Lists.newArrayList();
+                groups.put(p.group, group);
+            }
+            group.add(p);
+        }
+
+        return groups.values();
+    }
+
+    /**
+     * Invalid input fails the whole batch call with 400, either as the {@link InvalidInputException} itself or as
+     * the response it was mapped to.
+     */
+    private static boolean isInvalidInput(final Exception e) {
+        for (Throwable cause : Throwables.getCausalChain(e)) {
+            if (cause instanceof InvalidInputException) {
+                return true;
+            }
+            if (cause instanceof WebApplicationException
+                    && ((WebApplicationException)cause).getResponse().getStatus() == Response.Status.BAD_REQUEST.getStatusCode()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
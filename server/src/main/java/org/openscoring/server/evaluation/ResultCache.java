@@ -0,0 +1,108 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Data;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ServerSettings;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional cache of evaluation results keyed by model id, version, model generation, output projection and the
+ * bound active-field values themselves, which are compared for equality, so a lookup never relies on a hash alone.
+ * Concurrent requests for the same key wait for a single evaluation instead of repeating it.
+ *
+ * The generation keeps a result that an evaluation of an undeployed model writes back after {@link #invalidate} from
+ * ever being served for a model that is later deployed under the same id and version.
+ */
+@Singleton
+public class ResultCache {
+    private final Cache<Key, Map<String, Object>> cache;
+
+    @Inject
+    public ResultCache(final ServerSettings settings) {
+        if (settings.isResultCacheEnabled()) {
+            this.cache = CacheBuilder.newBuilder()
+                                     .maximumSize(settings.getResultCacheMaximumSize())
+                                     .expireAfterWrite(settings.getResultCacheTtlSeconds(), TimeUnit.SECONDS)
+                                     .recordStats()
+                                     .build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public Map<String, Object> get(final String id,
+                                   final Integer version,
+                                   final CompiledModel model,
+                                   final OutputProjection projection,
+                                   final Arguments arguments,
+                                   final Callable<Map<String, Object>> loader) {
+        try {
+            if (cache == null) {
+                return loader.call();
+            }
+
+            return cache.get(new Key(id, version, model.getGeneration(), projection, arguments.values()), loader);
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void invalidate(final String id, final Integer version) {
+        if (cache == null) {
+            return;
+        }
+
+        final Iterator<Key> keys = cache.asMap().keySet().iterator();
+
+        while (keys.hasNext()) {
+            final Key key = keys.next();
+
+            if (key.getId().equals(id) && key.getVersion().equals(version)) {
+                keys.remove();
+            }
+        }
+    }
+
+    public long size() {
+        return (cache != null) ? cache.size() : 0L;
+    }
+
+    public CacheStats stats() {
+        return (cache != null) ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        return (cause instanceof RuntimeException) ? (RuntimeException)cause : new RuntimeException(cause);
+    }
+
+    @Data
+    private static class Key {
+        private final String id;
+        private final Integer version;
+        private final long generation;
+        private final OutputProjection projection;
+        private final List<Object> values;
+    }
+}
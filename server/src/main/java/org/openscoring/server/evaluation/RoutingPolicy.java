@@ -0,0 +1,32 @@
+package org.openscoring.server.evaluation;
+
+import lombok.Data;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * How the unversioned endpoints of a model choose the version that evaluates a record: either a pinned version, or
+ * weighted splits between versions. Weighted routing hashes the request id, so a record with the same id keeps
+ * hitting the same version while the weights are unchanged. Shadow versions additionally evaluate every routed
+ * record in the background so that they can be compared with the version that answered.
+ */
+@Data
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class RoutingPolicy {
+    /**
+     * The version receiving all traffic.
+     */
+    private Integer version;
+
+    /**
+     * Relative share of traffic by version.
+     */
+    private SortedMap<Integer, Integer> weights;
+
+    /**
+     * Versions evaluated in the background for comparison.
+     */
+    private SortedSet<Integer> shadows;
+}
@@ -0,0 +1,154 @@
+package org.openscoring.server.evaluation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free quantile sketch of model scores in constant memory. Values are counted in logarithmic buckets whose
+ * width is a fixed fraction of their magnitude, so every quantile is within {@link #RELATIVE_ACCURACY} of the true
+ * value for magnitudes between {@link #MIN_MAGNITUDE} and {@link #MAX_MAGNITUDE}; smaller magnitudes count as zero
+ * and larger ones are clamped. Sketches with the same layout merge by adding their buckets.
+ */
+public class ScoreSketch {
+    public static final double RELATIVE_ACCURACY = 0.02;
+    public static final double MIN_MAGNITUDE = 1e-9;
+    public static final double MAX_MAGNITUDE = 1e9;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int OFFSET = (int)Math.floor(Math.log(MIN_MAGNITUDE) / LOG_GAMMA);
+    private static final int BUCKETS = (int)Math.ceil(Math.log(MAX_MAGNITUDE) / LOG_GAMMA) - OFFSET + 1;
+
+    private final AtomicLongArray positive = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray negative = new AtomicLongArray(BUCKETS);
+    private final AtomicLong zero = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+    private final AtomicLong max = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+
+    public void update(final double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        final double magnitude = Math.abs(value);
+
+        if (magnitude < MIN_MAGNITUDE) {
+            zero.incrementAndGet();
+        } else if (value > 0) {
+            positive.incrementAndGet(index(magnitude));
+        } else {
+            negative.incrementAndGet(index(magnitude));
+        }
+
+        count.incrementAndGet();
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     */
+    public void merge(final ScoreSketch other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            positive.addAndGet(i, other.positive.get(i));
+            negative.addAndGet(i, other.negative.get(i));
+        }
+
+        zero.addAndGet(other.zero.get());
+        count.addAndGet(other.count.get());
+        updateMin(other.getMin());
+        updateMax(other.getMax());
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * The smallest value seen, or positive infinity if there is none.
+     */
+    public double getMin() {
+        return Double.longBitsToDouble(min.get());
+    }
+
+    /**
+     * The largest value seen, or negative infinity if there is none.
+     */
+    public double getMax() {
+        return Double.longBitsToDouble(max.get());
+    }
+
+    /**
+     * Estimates a quantile, returning NaN if the sketch is empty. Concurrent updates may or may not be included.
+     */
+    public double getQuantile(final double quantile) {
+        long total = zero.get();
+
+        for (int i = 0; i < BUCKETS; i++) {
+            total += positive.get(i) + negative.get(i);
+        }
+
+        if (total == 0) {
+            return Double.NaN;
+        }
+
+        final long rank = (long)Math.floor(Math.max(0.0, Math.min(1.0, quantile)) * (total - 1));
+        long seen = 0;
+
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            seen += negative.get(i);
+            if (seen > rank) {
+                return clamp(-valueOf(i));
+            }
+        }
+
+        seen += zero.get();
+        if (seen > rank) {
+            return clamp(0.0);
+        }
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += positive.get(i);
+            if (seen > rank) {
+                return clamp(valueOf(i));
+            }
+        }
+
+        return getMax();
+    }
+
+    private double clamp(final double value) {
+        return Math.max(getMin(), Math.min(getMax(), value));
+    }
+
+    private static int index(final double magnitude) {
+        final int index = (int)Math.ceil(Math.log(magnitude) / LOG_GAMMA) - OFFSET;
+
+        return Math.max(0, Math.min(BUCKETS - 1, index));
+    }
+
+    private static double valueOf(final int index) {
+        return 2 * Math.pow(GAMMA, index + OFFSET) / (GAMMA + 1);
+    }
+
+    private void updateMin(final double value) {
+        while (true) {
+            final long current = min.get();
+
+            if (value >= Double.longBitsToDouble(current) || min.compareAndSet(current, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(final double value) {
+        while (true) {
+            final long current = max.get();
+
+            if (value <= Double.longBitsToDouble(current) || max.compareAndSet(current, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+}
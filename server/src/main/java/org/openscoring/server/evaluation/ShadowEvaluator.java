@@ -0,0 +1,199 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.dmg.pmml.FieldName;
+import org.openscoring.common.EvaluationRequest;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.ServerSettings;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates records again with the shadow versions of their routing policy, off the request path. Shadow work runs
+ * on low-priority threads behind a bounded queue and is dropped when the queue is full; its results are only
+ * compared with the primary result and recorded in the shadow version's {@link ModelMetrics}.
+ *
+ * Comparisons always use full results. When the caller projected the primary result down to some fields, the
+ * primary version is evaluated again in full on the shadow thread, once per record however many shadows there are.
+ */
+@Slf4j
+@Singleton
+public class ShadowEvaluator {
+    private final ModelRegistry registry;
+    private final ModelRouter router;
+    private final ModelMetrics modelMetrics;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Inject
+    public ShadowEvaluator(final ModelRegistry registry,
+                           final ModelRouter router,
+                           final ModelMetrics modelMetrics,
+                           final ServerSettings settings) {
+        this.registry = registry;
+        this.router = router;
+        this.modelMetrics = modelMetrics;
+        this.executor = new ThreadPoolExecutor(settings.getShadowWorkers(),
+                                               settings.getShadowWorkers(),
+                                               0L,
+                                               TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<Runnable>(settings.getShadowQueueCapacity()),
+                                               new ThreadFactoryBuilder()
+                                                       .setNameFormat("openscoring-shadow-%d")
+                                                       .setDaemon(true)
+                                                       .setPriority(Thread.MIN_PRIORITY)
+                                                       .build());
+    }
+
+    /**
+     * Queues the shadow evaluations of a record that the primary version has already scored.
+     *
+     * @param primaryResult the primary result as returned to the caller
+     * @param projection the projection that was applied to the primary result
+     */
+    public void submit(final String id,
+                       final Integer primaryVersion,
+                       final EvaluationRequest request,
+                       final Map<String, Object> primaryResult,
+                       final OutputProjection projection) {
+        final Supplier<Map<String, Object>> fullResult;
+
+        if (OutputProjection.ALL.equals(projection)) {
+            fullResult = Suppliers.ofInstance(primaryResult);
+        } else {
+            fullResult = Suppliers.memoize(new Supplier<Map<String, Object>>() {
+                @Override
+                public Map<String, Object> get() {
+                    return evaluatePrimary(id, primaryVersion, request);
+                }
+            });
+        }
+
+        for (final Integer version : router.getShadows(id)) {
+            if (version.equals(primaryVersion)) {
+                continue;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        evaluate(id, version, request, fullResult);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * The number of shadow evaluations dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void evaluate(final String id,
+                          final Integer version,
+                          final EvaluationRequest request,
+                          final Supplier<Map<String, Object>> primaryResult) {
+        final CompiledModel model = registry.get(id, version);
+
+        if (model == null) {
+            return;
+        }
+
+        final ModelMetrics.VersionMetrics versionMetrics = modelMetrics.get(id, version);
+        final long start = System.nanoTime();
+        final Map<String, Object> result;
+
+        try {
+            result = evaluateFully(model, request);
+        } catch (Exception e) {
+            log.debug("Failed to shadow evaluate model " + id + " version " + version, e);
+            versionMetrics.getShadowErrors().inc();
+            return;
+        } finally {
+            versionMetrics.getShadowEvaluations().update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        final Map<String, Object> primary = primaryResult.get();
+
+        if (primary != null) {
+            compare(model, primary, result, versionMetrics);
+        }
+    }
+
+    /**
+     * The full primary result, or <code>null</code> if it cannot be computed any more.
+     */
+    private Map<String, Object> evaluatePrimary(final String id, final Integer version, final EvaluationRequest request) {
+        final CompiledModel model = registry.get(id, version);
+
+        if (model == null) {
+            return null;
+        }
+
+        try {
+            return evaluateFully(model, request);
+        } catch (Exception e) {
+            log.debug("Failed to evaluate model " + id + " version " + version + " in full for comparison", e);
+            return null;
+        }
+    }
+
+    private static Map<String, Object> evaluateFully(final CompiledModel model, final EvaluationRequest request) {
+        final CompiledModel.Resident resident = model.getResident();
+        final Arguments arguments = resident.getInputBinding().bindLocal(request.getParameters());
+        final Map<FieldName, ?> evaluated = resident.getEvaluator().evaluate(arguments);
+
+        return OutputProjection.ALL.decode(evaluated, model.getThreshold().getScoreKey());
+    }
+
+    /**
+     * Two results agree when every predicted field present in both has the same value. Score differences are
+     * recorded separately, as the shadow score minus the primary score.
+     */
+    private static void compare(final CompiledModel model,
+                                final Map<String, Object> primaryResult,
+                                final Map<String, Object> result,
+                                final ModelMetrics.VersionMetrics versionMetrics) {
+        boolean compared = false;
+        boolean agreed = true;
+
+        for (String field : model.getSummary().getPredictedFields()) {
+            if (primaryResult.containsKey(field) && result.containsKey(field)) {
+                compared = true;
+                agreed &= Objects.equal(primaryResult.get(field), result.get(field));
+            }
+        }
+
+        if (compared) {
+            (agreed ? versionMetrics.getShadowAgreements() : versionMetrics.getShadowDisagreements()).inc();
+        }
+
+        final Object primaryScore = primaryResult.get(OutputProjection.SCORE_FIELD);
+        final Object score = result.get(OutputProjection.SCORE_FIELD);
+
+        if (primaryScore instanceof Number && score instanceof Number) {
+            versionMetrics.getShadowScoreDeltas().update(((Number)score).doubleValue() - ((Number)primaryScore).doubleValue());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openscoring.server.ServerSettings;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Evaluates every deployed version of a model concurrently under one overall deadline. Versions that fail or do
+ * not finish in time are reported back instead of being dropped.
+ *
+ * A model with a single version is evaluated on the calling thread and is not subject to the deadline, as it could
+ * only be enforced by handing the work to another thread.
+ */
+@Slf4j
+@Singleton
+public class VersionFanOut {
+    private final ListeningExecutorService executor;
+    private final long timeoutMillis;
+
+    @Inject
+    public VersionFanOut(final ServerSettings settings) {
+        this.timeoutMillis = settings.getVersionTimeoutMillis();
+        this.executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(
+                settings.getEffectiveVersionParallelism(),
+                new ThreadFactoryBuilder().setNameFormat("openscoring-versions-%d").setDaemon(true).build()));
+    }
+
+    public <T> Result<T> evaluate(final String id,
+                                  final Collection<Integer> versions,
+                                  final Function<Integer, T> function) {
+        final Result<T> result = new Result<T>();
+
+        if (versions.size() == 1) {
+            final Integer version = versions.iterator().next();
+
+            try {
+                result.results.put(version, function.apply(version));
+            } catch (Exception e) {
+                result.fail(id, version, e);
+            }
+
+            return result;
+        }
+
+        final Map<Integer, ListenableFuture<T>> futures = Maps.newLinkedHashMap();
+
+        for (final Integer version : versions) {
+            futures.put(version, executor.submit(new Callable<T>() {
+                @Override
+                public T call() {
+                    return function.apply(version);
+                }
+            }));
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        try {
+            for (Map.Entry<Integer, ListenableFuture<T>> entry : futures.entrySet()) {
+                final Integer version = entry.getKey();
+
+                try {
+                    final long remaining = Math.max(0L, deadline - System.nanoTime());
+                    result.results.put(version, entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    log.warn("Model {} version {} did not finish within {} ms", id, version, timeoutMillis);
+                    result.errors.put(version, "Timed out after " + timeoutMillis + " ms");
+                } catch (ExecutionException e) {
+                    result.fail(id, version, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating model " + id, e);
+        } finally {
+            for (ListenableFuture<T> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+
+        return result;
+    }
+
+    @Getter
+    public static class Result<T> {
+        private final Map<Integer, T> results = Maps.newLinkedHashMap();
+        private final Map<Integer, String> errors = Maps.newLinkedHashMap();
+
+        private void fail(String id, Integer version, Throwable t) {
+            log.warn("Failed to evaluate model " + id + " version " + version, t);
+            errors.put(version, describe(t));
+        }
+
+        private static String describe(Throwable t) {
+            if (t instanceof WebApplicationException) {
+                final WebApplicationException wae = (WebApplicationException)t;
+
+                if (wae.getCause() != null) {
+                    t = wae.getCause();
+                } else if (wae.getResponse().getEntity() instanceof String) {
+                    return (String)wae.getResponse().getEntity();
+                }
+            }
+
+            return Objects.firstNonNull(t.getMessage(), t.getClass().getSimpleName());
+        }
+    }
+}
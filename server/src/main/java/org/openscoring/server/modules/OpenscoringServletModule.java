@@ -1,15 +1,14 @@
 package org.openscoring.server.modules;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.google.inject.servlet.ServletModule;
 import com.sun.jersey.guice.spi.container.servlet.GuiceContainer;
-import org.dmg.pmml.PMML;
+import org.openscoring.common.SmileProvider;
 import org.openscoring.server.ModelService;
+import org.openscoring.server.evaluation.InvalidInputExceptionMapper;
+import org.openscoring.server.ServerSettings;
 
 import java.util.Map;
 
@@ -20,6 +19,8 @@ public class OpenscoringServletModule extends ServletModule {
         Map<String, String> config = Maps.newHashMap();
         config.put("com.sun.jersey.api.json.POJOMappingFeature", "true");
 
+        bind(SmileProvider.class).in(Singleton.class);
+        bind(InvalidInputExceptionMapper.class).in(Singleton.class);
         bind(ModelService.class);
 
         serve("/*").with(GuiceContainer.class, config);
@@ -27,8 +28,7 @@ public class OpenscoringServletModule extends ServletModule {
 
     @Provides
     @Singleton
-    @Named("pmml-model-cache")
-    protected Table<String, Integer, PMML> provideModelCache() {
-        return HashBasedTable.create();
+    protected ServerSettings provideServerSettings() {
+        return new ServerSettings();
     }
 }
@@ -0,0 +1,27 @@
+package org.openscoring.server.responses;
+
+import lombok.Data;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.openscoring.server.Threshold;
+
+import java.util.Map;
+
+/**
+ * Score distribution of a model version since it was deployed. The extremes and quantiles are absent while no score
+ * has been recorded.
+ */
+@Data
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class ScoreDistributionResponse {
+    public static final double[] QUANTILES = {0.5, 0.75, 0.9, 0.95, 0.99, 0.999};
+
+    private String modelName;
+    private Integer version;
+    private Threshold threshold;
+    private long count;
+    private Double min;
+    private Double max;
+    private Map<String, Double> quantiles;
+    private long aboveThreshold;
+    private long belowThreshold;
+}
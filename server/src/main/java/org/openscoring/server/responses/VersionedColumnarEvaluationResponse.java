@@ -0,0 +1,16 @@
+package org.openscoring.server.responses;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.openscoring.common.ColumnarEvaluationResponse;
+import org.openscoring.server.Threshold;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class VersionedColumnarEvaluationResponse extends ColumnarEvaluationResponse {
+    private final String modelName;
+    private final Integer version;
+    private Threshold threshold;
+}
@@ -1,13 +1,19 @@
 package org.openscoring.server.responses;
 
 import lombok.Data;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
 import org.openscoring.common.EvaluationResponse;
 import org.openscoring.server.Threshold;
 
 import java.util.Map;
 
 @Data
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
 public class VersionedEvaluationResponse {
     private final String modelName;
     private Map<Integer, ThresholdEvaluationResponse> result;
+    /**
+     * Versions that failed or timed out, with the reason, when evaluated through an unversioned endpoint.
+     */
+    private Map<Integer, String> errors;
 }
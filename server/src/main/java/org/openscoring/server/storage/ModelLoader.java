@@ -0,0 +1,121 @@
+package org.openscoring.server.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.ServerSettings;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Restores the models kept in the {@link ModelRepository} into the {@link ModelRegistry} when the server starts.
+ * Stored versions are unmarshalled and compiled in parallel in the background; the loader reports itself ready
+ * once every stored version has either been registered, been rejected by the registry because that version was
+ * already registered, or failed to load. Until then the model service refuses deploys, undeploys and routing
+ * changes, so that no write can conflict with a stored version that has not been registered yet.
+ */
+@Slf4j
+@Singleton
+public class ModelLoader {
+    private final ModelRepository repository;
+    private final ModelRegistry registry;
+    private final int parallelism;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int total = 0;
+    private volatile boolean started = false;
+
+    @Inject
+    public ModelLoader(final ModelRepository repository, final ModelRegistry registry, final ServerSettings settings) {
+        this.repository = repository;
+        this.registry = registry;
+        this.parallelism = settings.getEffectiveLoadParallelism();
+    }
+
+    /**
+     * Starts loading every stored model version and returns immediately.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        final List<ModelRepository.StoredModel> stored = repository.list();
+        final long startTime = System.currentTimeMillis();
+
+        total = stored.size();
+        started = true;
+
+        if (stored.isEmpty()) {
+            return;
+        }
+
+        log.info("Loading {} stored model versions with {} threads", total, parallelism);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, total),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("openscoring-loader-%d")
+                        .setDaemon(true)
+                        .build());
+
+        for (final ModelRepository.StoredModel model : stored) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    load(model);
+
+                    if (isReady()) {
+                        log.info("Loaded {} of {} stored model versions ({} rejected, {} failed) in {} ms",
+                                 new Object[]{loaded.get(), total, rejected.get(), failed.get(),
+                                              System.currentTimeMillis() - startTime});
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+    }
+
+    private void load(final ModelRepository.StoredModel stored) {
+        try {
+            if (registry.register(stored.getId(), stored.getVersion(), repository.load(stored))) {
+                loaded.incrementAndGet();
+            } else {
+                log.warn("Skipping stored model {} version {}, the version is already registered",
+                         stored.getId(), stored.getVersion());
+                rejected.incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.error("Cannot load model {} version {} from {}",
+                      new Object[]{stored.getId(), stored.getVersion(), stored.getFile(), e});
+            failed.incrementAndGet();
+        }
+    }
+
+    public boolean isReady() {
+        return started && (loaded.get() + rejected.get() + failed.get() >= total);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    public int getRejected() {
+        return rejected.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,285 @@
+package org.openscoring.server.storage;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.primitives.Ints;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.dmg.pmml.PMML;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ServerSettings;
+import org.openscoring.server.deploy.PmmlParser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Local file store of deployed PMML documents, laid out as <code>&lt;directory&gt;/&lt;id&gt;/&lt;version&gt;.pmml</code>.
+ * Uploads are first staged to a temporary file in the storage directory and synced to disk; accepting a model then
+ * renames the staged file into place, so a stored model is either complete or absent. Each version may also have a
+ * {@link ModelSnapshot} next to it, which restores much faster than parsing the PMML again.
+ */
+@Slf4j
+@Singleton
+public class ModelRepository {
+    private static final String SUFFIX = ".pmml";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final String ENCODING = "UTF-8";
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_.\\-]+");
+    private static final Pattern DOTS = Pattern.compile("\\.*");
+
+    private final PmmlParser parser;
+    private final File directory;
+    private final boolean snapshotsEnabled;
+
+    @Inject
+    public ModelRepository(final PmmlParser parser, final ServerSettings settings) {
+        this.parser = parser;
+
+        final String path = settings.getStorageDirectory();
+        this.directory = (path != null) ? new File(path) : null;
+        this.snapshotsEnabled = settings.isStorageSnapshots();
+
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create model storage directory " + directory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Model ids are restricted to letters, digits, '_', '-' and '.', and must not consist of dots only, so that every
+     * id maps to a directory of its own below the storage directory.
+     */
+    public static boolean isValidId(final String id) {
+        return id != null && ID.matcher(id).matches() && !DOTS.matcher(id).matches();
+    }
+
+    /**
+     * Copies an uploaded document to a new temporary file and syncs it to disk.
+     */
+    public File stage(final InputStream is) throws IOException {
+        final File staged = File.createTempFile("deploy-", ".tmp", directory);
+        final FileOutputStream os = new FileOutputStream(staged);
+        boolean threw = true;
+
+        try {
+            ByteStreams.copy(is, os);
+            os.flush();
+            os.getFD().sync();
+            threw = false;
+        } finally {
+            Closeables.close(os, threw);
+            if (threw) {
+                discard(staged);
+            }
+        }
+
+        return staged;
+    }
+
+    /**
+     * Moves a staged document into place as the given model version. A version that is already stored is never
+     * replaced.
+     */
+    public void commit(final File staged, final String id, final Integer version) throws IOException {
+        final File modelDirectory = new File(directory, encode(id));
+
+        if (!modelDirectory.isDirectory() && !modelDirectory.mkdirs()) {
+            throw new IOException("Cannot create directory " + modelDirectory);
+        }
+
+        final File target = new File(modelDirectory, version + SUFFIX);
+
+        if (target.exists()) {
+            throw new IOException("Model " + id + " version " + version + " is already stored as " + target);
+        }
+
+        if (!staged.renameTo(target)) {
+            throw new IOException("Cannot move " + staged + " to " + target);
+        }
+    }
+
+    public boolean isStored(final String id, final Integer version) {
+        return directory != null && new File(new File(directory, encode(id)), version + SUFFIX).exists();
+    }
+
+    public PMML read(final File file) throws Exception {
+        final InputStream is = new BufferedInputStream(new FileInputStream(file));
+
+        try {
+            return parser.parse(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Restores a stored model version, from its snapshot when there is a current one and otherwise from the PMML
+     * file, in which case the snapshot is written anew.
+     */
+    public CompiledModel load(final StoredModel stored) throws Exception {
+        final File snapshotFile = snapshotFile(stored.getFile());
+
+        if (snapshotsEnabled) {
+            try {
+                final ModelSnapshot snapshot = ModelSnapshot.read(snapshotFile, stored.getFile());
+
+                if (snapshot != null) {
+                    return CompiledModel.compile(snapshot.getPmml(), snapshot.getThreshold());
+                }
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable snapshot {}", snapshotFile, e);
+            }
+        }
+
+        final CompiledModel model = CompiledModel.compile(read(stored.getFile()));
+        writeSnapshot(stored.getFile(), model);
+
+        return model;
+    }
+
+    /**
+     * Writes the snapshot of a committed model version. Failures are logged, as the version can always be restored
+     * from its PMML file.
+     */
+    public void writeSnapshot(final String id, final Integer version, final CompiledModel model) {
+        if (directory != null) {
+            writeSnapshot(new File(new File(directory, encode(id)), version + SUFFIX), model);
+        }
+    }
+
+    private void writeSnapshot(final File file, final CompiledModel model) {
+        if (!snapshotsEnabled) {
+            return;
+        }
+
+        try {
+            ModelSnapshot.write(new ModelSnapshot(model.getPmml(), model.getThreshold()),
+                                snapshotFile(file),
+                                file,
+                                directory);
+        } catch (IOException e) {
+            log.warn("Cannot write snapshot of {}", file, e);
+        }
+    }
+
+    public void discard(final File staged) {
+        if (staged != null && staged.exists() && !staged.delete()) {
+            log.warn("Cannot delete staged model file {}", staged);
+        }
+    }
+
+    public boolean delete(final String id, final Integer version) {
+        if (directory == null) {
+            return false;
+        }
+
+        final File modelDirectory = new File(directory, encode(id));
+        final File file = new File(modelDirectory, version + SUFFIX);
+        final boolean deleted = file.delete();
+
+        snapshotFile(file).delete();
+
+        final String[] remaining = modelDirectory.list();
+        if (remaining != null && remaining.length == 0) {
+            modelDirectory.delete();
+        }
+
+        return deleted;
+    }
+
+    /**
+     * All stored model versions. Leftover staged files from an interrupted deploy are removed.
+     */
+    public List<StoredModel> list() {
+        final List<StoredModel> models = Lists.newArrayList();
+
+        if (directory == null) {
+            return models;
+        }
+
+        final File[] entries = directory.listFiles();
+        if (entries == null) {
+            return models;
+        }
+
+        for (File entry : entries) {
+            if (entry.isFile()) {
+                discard(entry);
+                continue;
+            }
+
+            final File[] files = entry.listFiles();
+            if (files == null) {
+                continue;
+            }
+
+            for (File file : files) {
+                final String name = file.getName();
+
+                if (name.endsWith(SNAPSHOT_SUFFIX)) {
+                    continue;
+                }
+
+                final Integer version = name.endsWith(SUFFIX) ? Ints.tryParse(name.substring(0, name.length() - SUFFIX.length())) : null;
+
+                if (version == null) {
+                    log.warn("Ignoring unexpected file {} in model storage", file);
+                    continue;
+                }
+
+                models.add(new StoredModel(decode(entry.getName()), version, file));
+            }
+        }
+
+        return models;
+    }
+
+    private static File snapshotFile(final File file) {
+        final String name = file.getName();
+        return new File(file.getParentFile(), name.substring(0, name.length() - SUFFIX.length()) + SNAPSHOT_SUFFIX);
+    }
+
+    private static String encode(final String id) {
+        // "." and ".." would resolve to the storage directory or its parent
+        if (DOTS.matcher(id).matches()) {
+            return id.replace(".", "%2E");
+        }
+
+        try {
+            return URLEncoder.encode(id, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(final String name) {
+        try {
+            return URLDecoder.decode(name, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Data
+    public static class StoredModel {
+        private final String id;
+        private final Integer version;
+        private final File file;
+    }
+}
@@ -0,0 +1,141 @@
+package org.openscoring.server.storage;
+
+import com.google.common.io.Closeables;
+import lombok.Data;
+import org.dmg.pmml.PMML;
+import org.openscoring.server.Threshold;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary form of a stored model version: the parsed PMML tree and its threshold in Java serialization, behind a
+ * header with a magic number, the format version and the length and modification time of the PMML file it was
+ * made from. A snapshot whose header does not match is ignored, so it is rebuilt from the PMML file, which stays the
+ * source of truth.
+ */
+@Data
+public class ModelSnapshot {
+    static final int MAGIC = 0x4F53504D;
+    static final int FORMAT_VERSION = 1;
+
+    private final PMML pmml;
+    private final Threshold threshold;
+
+    /**
+     * Writes a snapshot next to its source through a synced temporary file, which is deleted again if writing fails.
+     */
+    static void write(final ModelSnapshot snapshot, final File file, final File source, final File tempDirectory)
+            throws IOException {
+        final File temp = File.createTempFile("snapshot-", ".tmp", tempDirectory);
+        boolean written = false;
+
+        try {
+            final FileOutputStream fos = new FileOutputStream(temp);
+            boolean threw = true;
+
+            try {
+                final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(fos));
+                os.writeInt(MAGIC);
+                os.writeInt(FORMAT_VERSION);
+                os.writeLong(source.length());
+                os.writeLong(source.lastModified());
+
+                final ObjectOutputStream oos = new ObjectOutputStream(os);
+                oos.writeObject(snapshot.getPmml());
+                oos.writeObject(snapshot.getThreshold());
+                oos.flush();
+
+                fos.getFD().sync();
+                threw = false;
+            } finally {
+                Closeables.close(fos, threw);
+            }
+
+            if (!temp.renameTo(file)) {
+                throw new IOException("Cannot move " + temp + " to " + file);
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Maps and reads a snapshot.
+     *
+     * @return the snapshot, or null if there is none or it was not made from the current source by this format
+     */
+    static ModelSnapshot read(final File file, final File source) throws IOException, ClassNotFoundException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final FileInputStream fis = new FileInputStream(file);
+
+        try {
+            final FileChannel channel = fis.getChannel();
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < 24
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != source.length()
+                    || buffer.getLong() != source.lastModified()) {
+                return null;
+            }
+
+            final ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(buffer));
+            final PMML pmml = (PMML)ois.readObject();
+            final Threshold threshold = (Threshold)ois.readObject();
+
+            return new ModelSnapshot(pmml, threshold);
+        } finally {
+            fis.close();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.openscoring.server;
+
+import com.google.common.collect.ImmutableMap;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.junit.Test;
+import org.openscoring.server.deploy.PmmlParser;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class ModelResidencyTest {
+    private static final Map<String, Object> PARAMETERS = ImmutableMap.<String, Object>of("x1", 3.0, "x2", 2.0);
+
+    @Test
+    public void restoresDemotedModel() throws Exception {
+        final CompiledModel model = CompiledModel.compile(parse("/regression.pmml"));
+        final CompiledModel.Resident original = model.getResident();
+        final Object expected = evaluate(original);
+
+        final ServerSettings settings = new ServerSettings();
+        settings.setResidentIdleSeconds(3600);
+
+        final ModelResidency residency = new ModelResidency(settings);
+        residency.admit(model);
+
+        assertTrue("model was not compressed", residency.getStoredBytes() > 0);
+
+        // A released model is restored from its compressed form on every access
+        residency.release(model);
+
+        final CompiledModel.Resident restored = model.getResident();
+
+        assertNotSame(original, restored);
+        assertEquals(expected, evaluate(restored));
+        assertEquals(6.5, ((Number)expected).doubleValue(), 1e-9);
+    }
+
+    static PMML parse(final String resource) throws Exception {
+        final InputStream is = ModelResidencyTest.class.getResourceAsStream(resource);
+
+        try {
+            return new PmmlParser().parse(is);
+        } finally {
+            is.close();
+        }
+    }
+
+    static Object evaluate(final CompiledModel.Resident resident) {
+        final Map<FieldName, ?> result = resident.getEvaluator().evaluate(resident.getInputBinding().bind(PARAMETERS));
+
+        return EvaluatorUtil.decode(result.get(new FieldName("y")));
+    }
+}
@@ -0,0 +1,38 @@
+package org.openscoring.server.evaluation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FieldConverterTest {
+
+    @Test
+    public void integerAcceptsIntegralNumbersAndStringsAlike() {
+        assertEquals(1, FieldConverter.INTEGER.convert(1));
+        assertEquals(1, FieldConverter.INTEGER.convert(1L));
+        assertEquals(1, FieldConverter.INTEGER.convert(1.0));
+        assertEquals(1, FieldConverter.INTEGER.convert("1"));
+        assertEquals(1, FieldConverter.INTEGER.convert("1.0"));
+        assertEquals(-7, FieldConverter.INTEGER.convert(" -7 "));
+    }
+
+    @Test
+    public void integerRejectsFractionalNumbersAndStringsAlike() {
+        assertRejected(1.5);
+        assertRejected("1.5");
+        assertRejected(1e10);
+        assertRejected("1e10");
+        assertRejected("NaN");
+        assertRejected("one");
+    }
+
+    private static void assertRejected(final Object value) {
+        try {
+            FieldConverter.INTEGER.convert(value);
+            fail("accepted " + value);
+        } catch (InvalidInputException expected) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.openscoring.server.evaluation;
+
+import com.google.common.collect.Lists;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.dmg.pmml.FieldName;
+import org.dmg.pmml.PMML;
+import org.jpmml.evaluator.Evaluator;
+import org.openscoring.common.EvaluationRequest;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.deploy.PmmlParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares binding one request through the precompiled {@link InputBinding} with the per-request map that
+ * <code>ModelService</code> used to build, reporting time and allocated bytes per record. The legacy path is the old
+ * boolean rewrite loop followed by the old <code>evaluate</code> map building, without its log statements. Because it
+ * rewrites the request map in place, every path starts from a fresh copy of the parameters, standing in for the map
+ * that is deserialized with each request.
+ *
+ * This is a plain main class, not a test. Run it against any PMML document and a matching request:
+ * <pre>
+ * mvn -pl server test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp server/target/classes:server/target/test-classes:$(cat server/cp.txt) \
+ *     org.openscoring.server.evaluation.InputBindingBenchmark DecisionTreeIris.pmml EvaluationRequest.json 1000000
+ * </pre>
+ */
+public class InputBindingBenchmark {
+    private static volatile Object sink;
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: InputBindingBenchmark <model.pmml> <request.json> [iterations]");
+            System.exit(1);
+        }
+
+        final PMML pmml;
+        final InputStream is = new FileInputStream(args[0]);
+        try {
+            pmml = new PmmlParser().parse(is);
+        } finally {
+            is.close();
+        }
+
+        final EvaluationRequest request = new ObjectMapper().readValue(new File(args[1]), EvaluationRequest.class);
+        final int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 1000000;
+
+        final CompiledModel model = CompiledModel.compile(pmml);
+        final Evaluator evaluator = model.getEvaluator();
+        final InputBinding binding = model.getInputBinding();
+        final Map<String, ?> parameters = request.getParameters();
+
+        final Runnable legacy = new Runnable() {
+            @Override
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            public void run() {
+                final Map<String, ?> requestParameters = new LinkedHashMap<String, Object>(parameters);
+                final List<Map.Entry<String, ?>> toTransform = Lists.newArrayListWithCapacity(requestParameters.size());
+
+                for (Map.Entry<String, ?> param : requestParameters.entrySet()) {
+                    if (param.getValue() instanceof Boolean) {
+                        toTransform.add(param);
+                    }
+                }
+
+                for (Map.Entry<String, ?> param : toTransform) {
+                    Boolean boolValue = (Boolean) param.getValue();
+                    ((Map)requestParameters).put(param.getKey(), Boolean.toString(boolValue));
+                }
+
+                final Map<FieldName, Object> arguments = new LinkedHashMap<FieldName, Object>();
+                final List<FieldName> activeFields = evaluator.getActiveFields();
+
+                for (FieldName activeField : activeFields) {
+                    final Object value = requestParameters.get(activeField.getValue());
+
+                    arguments.put(activeField, evaluator.prepare(activeField, value));
+                }
+                sink = arguments;
+            }
+        };
+        final Runnable planned = new Runnable() {
+            @Override
+            public void run() {
+                sink = binding.bind(new LinkedHashMap<String, Object>(parameters));
+            }
+        };
+        final Arguments buffer = binding.newArguments();
+        final Runnable reused = new Runnable() {
+            @Override
+            public void run() {
+                sink = binding.bind(new LinkedHashMap<String, Object>(parameters), buffer);
+            }
+        };
+
+        for (int round = 0; round < 3; round++) {
+            measure("legacy map", legacy, iterations);
+            measure("input binding", planned, iterations);
+            measure("reused buffer", reused, iterations);
+        }
+    }
+
+    private static void measure(final String name, final Runnable task, final int iterations) throws Exception {
+        final long startBytes = allocatedBytes();
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+
+        final long nanos = System.nanoTime() - start;
+        final long bytes = allocatedBytes() - startBytes;
+
+        System.out.println(String.format("%-14s %8.1f ns/op %8.1f B/op",
+                                         name,
+                                         (double)nanos / iterations,
+                                         (startBytes < 0) ? Double.NaN : (double)bytes / iterations));
+    }
+
+    /**
+     * Bytes allocated by the current thread, or -1 where the JVM does not report them.
+     */
+    private static long allocatedBytes() throws Exception {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        try {
+            final Method method = threads.getClass().getMethod("getThreadAllocatedBytes", long.class);
+            method.setAccessible(true);
+            return (Long)method.invoke(threads, Thread.currentThread().getId());
+        } catch (NoSuchMethodException e) {
+            return -1L;
+        }
+    }
+}
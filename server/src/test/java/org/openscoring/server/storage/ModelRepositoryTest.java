@@ -0,0 +1,99 @@
+package org.openscoring.server.storage;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.dmg.pmml.FieldName;
+import org.jpmml.evaluator.EvaluatorUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ServerSettings;
+import org.openscoring.server.deploy.PmmlParser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ModelRepositoryTest {
+    private static final Map<String, Object> PARAMETERS = ImmutableMap.<String, Object>of("x1", 3.0, "x2", 2.0);
+
+    private File directory;
+    private ModelRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDir();
+
+        final ServerSettings settings = new ServerSettings();
+        settings.setStorageDirectory(directory.getPath());
+        settings.setStorageSnapshots(true);
+
+        repository = new ModelRepository(new PmmlParser(), settings);
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void loadsFromSnapshot() throws Exception {
+        final InputStream is = getClass().getResourceAsStream("/regression.pmml");
+
+        try {
+            repository.commit(repository.stage(is), "regression", 1);
+        } finally {
+            is.close();
+        }
+
+        final List<ModelRepository.StoredModel> stored = repository.list();
+        assertEquals(1, stored.size());
+
+        final File file = stored.get(0).getFile();
+        final File snapshotFile = new File(file.getParentFile(), "1.snapshot");
+
+        // The first load parses the PMML file and writes the snapshot
+        final CompiledModel parsed = repository.load(stored.get(0));
+        assertTrue("snapshot was not written", snapshotFile.isFile());
+        assertNotNull(ModelSnapshot.read(snapshotFile, file));
+        assertNoTemporaryFiles();
+
+        // The second load restores the snapshot
+        final CompiledModel restored = repository.load(stored.get(0));
+
+        assertEquals(parsed.getThreshold(), restored.getThreshold());
+        assertEquals(evaluate(parsed), evaluate(restored));
+        assertEquals(6.5, ((Number)evaluate(restored)).doubleValue(), 1e-9);
+    }
+
+    private void assertNoTemporaryFiles() {
+        for (String name : directory.list()) {
+            assertFalse("leftover " + name, name.endsWith(".tmp"));
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static Object evaluate(final CompiledModel model) {
+        final CompiledModel.Resident resident = model.getResident();
+        final Map<FieldName, ?> result = resident.getEvaluator().evaluate(resident.getInputBinding().bind(PARAMETERS));
+
+        return EvaluatorUtil.decode(result.get(new FieldName("y")));
+    }
+}
@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.LifeCycle;
+import org.openscoring.server.storage.ModelLoader;
 import org.openscoring.standalone.metrics.reporter.AggregateScheduledReporter;
 import org.openscoring.standalone.modules.ConfigModule;
 import org.openscoring.standalone.modules.MetricsModule;
@@ -34,6 +35,8 @@ public class Main {
                 new ScheduledReporterModule()
         );
 
+        injector.getInstance(ModelLoader.class).start();
+
         final Server server = injector.getInstance(Server.class);
         final int reporterInterval = baseConfig.getInt("openscoring.metrics.reporterIntervalSeconds");
         final AggregateScheduledReporter reporter = injector.getInstance(AggregateScheduledReporter.class);
@@ -0,0 +1,48 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.audit.ScoringAuditLog;
+
+import java.util.Map;
+
+public class AuditLogMetricSet implements MetricSet {
+    protected final ScoringAuditLog auditLog;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected AuditLogMetricSet(final ScoringAuditLog auditLog) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(3);
+
+        metricMap.put(MetricRegistry.name(getClass(), "audit-log", "dropped"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return auditLog.getDroppedCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "audit-log", "pending"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return auditLog.getPendingCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "audit-log", "capacity"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return auditLog.getCapacity();
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
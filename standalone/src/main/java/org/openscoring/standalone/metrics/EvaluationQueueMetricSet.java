@@ -0,0 +1,54 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.evaluation.EvaluationQueue;
+
+import java.util.Map;
+
+public class EvaluationQueueMetricSet implements MetricSet {
+    protected final EvaluationQueue queue;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected EvaluationQueueMetricSet(final EvaluationQueue queue) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(4);
+
+        metricMap.put(MetricRegistry.name(getClass(), "evaluation-queue", "depth"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.getQueueDepth();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "evaluation-queue", "capacity"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.getCapacity();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "evaluation-queue", "active"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return queue.getActiveCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "evaluation-queue", "rejected"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return queue.getRejectedCount();
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.queue = queue;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
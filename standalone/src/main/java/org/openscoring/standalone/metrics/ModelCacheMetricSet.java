@@ -2,38 +2,46 @@ package org.openscoring.standalone.metrics;
 
 import com.codahale.metrics.*;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
 import com.google.inject.Inject;
-import com.google.inject.name.Named;
-import org.dmg.pmml.PMML;
+import org.openscoring.server.ModelRegistry;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class ModelCacheMetricSet implements MetricSet {
-    protected final Table<String, Integer, PMML> table;
+    protected final ModelRegistry registry;
     protected final Histogram mapSizeHistory = new Histogram(new UniformReservoir());
     protected final Map<String, Metric> metricMap;
 
     protected final Gauge<Integer> mapSizeGauge = new CachedGauge<Integer>(1, TimeUnit.MINUTES) {
         @Override
         protected Integer loadValue() {
-            int mapSize = table.size();
+            int mapSize = registry.size();
             mapSizeHistory.update(mapSize);
             return mapSize;
         }
     };
 
     @Inject
-    protected ModelCacheMetricSet(@Named("pmml-model-cache") final Table<String, Integer, PMML> table) {
-        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(2);
+    protected ModelCacheMetricSet(final ModelRegistry registry) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(3);
 
         metricMap.put(MetricRegistry.name(getClass(), "model-cache", "size"), this.mapSizeGauge);
         metricMap.put(MetricRegistry.name(getClass(), "model-cache", "historical-size"),
                       this.mapSizeHistory);
+        metricMap.put(MetricRegistry.name(getClass(), "model-cache", "footprint-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                long total = 0;
+                for (String id : registry.getIds()) {
+                    total += ModelFootprintMetrics.footprint(registry, id);
+                }
+                return total;
+            }
+        });
 
         this.metricMap = metricMap;
-        this.table = table;
+        this.registry = registry;
     }
 
     @Override
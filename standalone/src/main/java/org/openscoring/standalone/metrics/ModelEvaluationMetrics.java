@@ -0,0 +1,109 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Maps;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.evaluation.ModelMetrics;
+import org.openscoring.server.evaluation.ScoreSketch;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Publishes the evaluation timer, row meter, batch-size histogram, error counter, score distribution and shadow
+ * comparison of every deployed model version for as long as the version is deployed. A version may be reported more
+ * than once, so only the metrics that are missing are registered. Dots in model ids are replaced with underscores, as
+ * they would split the metric path.
+ */
+public class ModelEvaluationMetrics implements ModelRegistry.Listener {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    protected final ModelRegistry registry;
+    protected final ModelMetrics modelMetrics;
+    protected final MetricRegistry metricRegistry;
+
+    public ModelEvaluationMetrics(final ModelRegistry registry,
+                                  final ModelMetrics modelMetrics,
+                                  final MetricRegistry metricRegistry) {
+        this.registry = registry;
+        this.modelMetrics = modelMetrics;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public synchronized void onRegister(final String id, final Integer version, final CompiledModel model) {
+        if (!registry.contains(id, version)) {
+            return;
+        }
+
+        final Set<String> existing = metricRegistry.getNames();
+
+        for (Map.Entry<String, Metric> entry : metrics(id, version).entrySet()) {
+            if (!existing.contains(entry.getKey())) {
+                metricRegistry.register(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onUnregister(final String id, final Integer version, final CompiledModel model) {
+        if (registry.contains(id, version)) {
+            return;
+        }
+
+        for (String name : metrics(id, version).keySet()) {
+            metricRegistry.remove(name);
+        }
+    }
+
+    private Map<String, Metric> metrics(final String id, final Integer version) {
+        final ModelMetrics.VersionMetrics versionMetrics = modelMetrics.get(id, version);
+        final Map<String, Metric> metrics = Maps.newLinkedHashMap();
+
+        metrics.put(name(id, version, "evaluations"), versionMetrics.getEvaluations());
+        metrics.put(name(id, version, "rows"), versionMetrics.getRows());
+        metrics.put(name(id, version, "batch-size"), versionMetrics.getBatchSizes());
+        metrics.put(name(id, version, "errors"), versionMetrics.getErrors());
+        metrics.put(name(id, version, "above-threshold"), versionMetrics.getAboveThreshold());
+        metrics.put(name(id, version, "below-threshold"), versionMetrics.getBelowThreshold());
+        metrics.put(name(id, version, "shadow", "evaluations"), versionMetrics.getShadowEvaluations());
+        metrics.put(name(id, version, "shadow", "agreements"), versionMetrics.getShadowAgreements());
+        metrics.put(name(id, version, "shadow", "disagreements"), versionMetrics.getShadowDisagreements());
+        metrics.put(name(id, version, "shadow", "errors"), versionMetrics.getShadowErrors());
+
+        for (double quantile : QUANTILES) {
+            metrics.put(name(id, version, "score", percentile(quantile)), quantile(versionMetrics.getScores(), quantile));
+            metrics.put(name(id, version, "shadow", "score-delta", percentile(quantile)),
+                        quantile(versionMetrics.getShadowScoreDeltas(), quantile));
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Names a quantile as a percentile, such as "p50" for 0.5 and "p99" for 0.99.
+     */
+    private static String percentile(final double quantile) {
+        return "p" + Math.round(quantile * 100);
+    }
+
+    private static Gauge<Double> quantile(final ScoreSketch sketch, final double quantile) {
+        return new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return sketch.getQuantile(quantile);
+            }
+        };
+    }
+
+    private String name(final String id, final Integer version, final String... metric) {
+        return MetricRegistry.name(MetricRegistry.name(getClass(), "models", segment(id), String.valueOf(version)), metric);
+    }
+
+    static String segment(final String id) {
+        return id.replace('.', '_');
+    }
+}
@@ -0,0 +1,79 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.openscoring.server.CompiledModel;
+import org.openscoring.server.ModelRegistry;
+
+/**
+ * Publishes the estimated heap footprint of every deployed model version, and of all versions of each model, as
+ * gauges that come and go with the versions themselves. The gauges read the current versions from the registry, so
+ * each is registered once and a repeated registration is a no-op.
+ */
+public class ModelFootprintMetrics implements ModelRegistry.Listener {
+    protected final ModelRegistry registry;
+    protected final MetricRegistry metricRegistry;
+
+    public ModelFootprintMetrics(final ModelRegistry registry, final MetricRegistry metricRegistry) {
+        this.registry = registry;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public synchronized void onRegister(final String id, final Integer version, final CompiledModel model) {
+        if (!registry.contains(id, version)) {
+            return;
+        }
+
+        registerIfAbsent(versionName(id, version), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                final CompiledModel current = registry.get(id, version);
+
+                return (current != null) ? current.getFootprint() : 0L;
+            }
+        });
+        registerIfAbsent(modelName(id), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return footprint(registry, id);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void onUnregister(final String id, final Integer version, final CompiledModel model) {
+        metricRegistry.remove(versionName(id, version));
+
+        if (registry.getVersions(id).isEmpty()) {
+            metricRegistry.remove(modelName(id));
+        }
+    }
+
+    /**
+     * The estimated footprint of all deployed versions of a model.
+     */
+    public static long footprint(final ModelRegistry registry, final String id) {
+        long total = 0;
+
+        for (CompiledModel model : registry.getVersions(id).values()) {
+            total += model.getFootprint();
+        }
+
+        return total;
+    }
+
+    private void registerIfAbsent(final String name, final Gauge<Long> gauge) {
+        if (!metricRegistry.getMetrics().containsKey(name)) {
+            metricRegistry.register(name, gauge);
+        }
+    }
+
+    private String modelName(final String id) {
+        return MetricRegistry.name(getClass(), "footprint", ModelEvaluationMetrics.segment(id));
+    }
+
+    private String versionName(final String id, final Integer version) {
+        return MetricRegistry.name(getClass(), "footprint", ModelEvaluationMetrics.segment(id), String.valueOf(version));
+    }
+}
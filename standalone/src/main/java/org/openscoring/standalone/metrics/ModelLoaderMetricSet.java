@@ -0,0 +1,60 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.storage.ModelLoader;
+
+import java.util.Map;
+
+public class ModelLoaderMetricSet implements MetricSet {
+    protected final ModelLoader loader;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected ModelLoaderMetricSet(final ModelLoader loader) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(5);
+
+        metricMap.put(MetricRegistry.name(getClass(), "model-loader", "total"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return loader.getTotal();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "model-loader", "loaded"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return loader.getLoaded();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "model-loader", "rejected"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return loader.getRejected();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "model-loader", "failed"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return loader.getFailed();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "model-loader", "ready"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return loader.isReady() ? 1 : 0;
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.loader = loader;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
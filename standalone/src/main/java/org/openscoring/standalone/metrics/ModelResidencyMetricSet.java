@@ -0,0 +1,67 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.ModelResidency;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class ModelResidencyMetricSet implements MetricSet {
+    protected final ModelResidency residency;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected ModelResidencyMetricSet(final ModelResidency residency) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(6);
+
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "resident-models"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return residency.getResidentCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "resident-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return residency.getResidentBytes();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "stored-bytes"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return residency.getStoredBytes();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "evictions"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return residency.stats().evictionCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "promotions"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return residency.stats().loadCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "residency", "promotion-millis"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return TimeUnit.NANOSECONDS.toMillis(residency.stats().totalLoadTime());
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.residency = residency;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
@@ -0,0 +1,54 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.evaluation.ResultCache;
+
+import java.util.Map;
+
+public class ResultCacheMetricSet implements MetricSet {
+    protected final ResultCache resultCache;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected ResultCacheMetricSet(final ResultCache resultCache) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(4);
+
+        metricMap.put(MetricRegistry.name(getClass(), "result-cache", "hits"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return resultCache.stats().hitCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "result-cache", "misses"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return resultCache.stats().missCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "result-cache", "evictions"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return resultCache.stats().evictionCount();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "result-cache", "size"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return resultCache.size();
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.resultCache = resultCache;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
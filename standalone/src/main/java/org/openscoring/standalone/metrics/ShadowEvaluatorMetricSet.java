@@ -0,0 +1,42 @@
+package org.openscoring.standalone.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import org.openscoring.server.evaluation.ShadowEvaluator;
+
+import java.util.Map;
+
+public class ShadowEvaluatorMetricSet implements MetricSet {
+    protected final ShadowEvaluator shadowEvaluator;
+    protected final Map<String, Metric> metricMap;
+
+    @Inject
+    protected ShadowEvaluatorMetricSet(final ShadowEvaluator shadowEvaluator) {
+        final Map<String, Metric> metricMap = Maps.newHashMapWithExpectedSize(2);
+
+        metricMap.put(MetricRegistry.name(getClass(), "shadow", "queue-size"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return shadowEvaluator.getQueueSize();
+            }
+        });
+        metricMap.put(MetricRegistry.name(getClass(), "shadow", "dropped"), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return shadowEvaluator.getDropped();
+            }
+        });
+
+        this.metricMap = metricMap;
+        this.shadowEvaluator = shadowEvaluator;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return metricMap;
+    }
+}
@@ -1,26 +1,31 @@
 package org.openscoring.standalone.metrics.health;
 
 import com.codahale.metrics.health.HealthCheck;
-import com.google.common.collect.Table;
 import com.google.inject.Inject;
-import com.google.inject.name.Named;
-import org.dmg.pmml.PMML;
-
-import java.util.Map;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.storage.ModelLoader;
 
 public class ModelHealthCheck extends HealthCheck {
 
-    private final Table<String, Integer, PMML> modelsCache;
+    private final ModelRegistry registry;
+    private final ModelLoader loader;
 
     @Inject
-    protected ModelHealthCheck(@Named("pmml-model-cache") final Table<String, Integer, PMML> modelsCache) {
-        this.modelsCache = modelsCache;
+    protected ModelHealthCheck(final ModelRegistry registry, final ModelLoader loader) {
+        this.registry = registry;
+        this.loader = loader;
     }
 
     @Override
     protected Result check() throws Exception {
-        if (modelsCache != null) {
-            if (modelsCache.isEmpty()) {
+        if (!loader.isReady()) {
+            return Result.unhealthy(String.format("Not ready, loaded %d of %d stored models",
+                                                  loader.getLoaded() + loader.getRejected() + loader.getFailed(),
+                                                  loader.getTotal()));
+        }
+
+        if (registry != null) {
+            if (registry.isEmpty()) {
                 return Result.healthy("No models in cache!");
             } else {
                 return Result.healthy("Models cache contains models");
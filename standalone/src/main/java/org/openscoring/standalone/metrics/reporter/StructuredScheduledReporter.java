@@ -66,7 +66,17 @@ public abstract class StructuredScheduledReporter extends ScheduledReporter {
         }
     }
 
+    /**
+     * @return the formatted number, or null if the value is not a finite number and should not be reported
+     */
     protected String format(Object o) {
+        if (o instanceof Number && !(o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte)) {
+            final double v = ((Number) o).doubleValue();
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                return null;
+            }
+        }
+
         if (o instanceof Float) {
             return format(((Float) o).doubleValue());
         } else if (o instanceof Double) {
@@ -55,6 +55,9 @@ public class StatsD extends BaseReporterClient {
         if (writer == null) {
             throw new IOException("No writer available!");
         }
+        if (value == null) {
+            return;
+        }
         if (outputStream.size() > 0) {
             writer.append('\n');
         }
@@ -164,6 +164,9 @@ public class StatsDReporter extends StructuredScheduledReporter {
 
     protected String format(Object o, StatType statType) {
         String fmtO = format(o);
+        if (fmtO == null) {
+            return null;
+        }
         switch (statType) {
             case COUNTER:
                 return String.format(formatString, fmtO, "c");
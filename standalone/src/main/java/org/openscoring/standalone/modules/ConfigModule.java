@@ -6,6 +6,9 @@ import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigObject;
+import org.openscoring.server.ServerSettings;
+import org.openscoring.server.audit.AuditPolicy;
 
 public class ConfigModule extends AbstractModule {
     protected Config config;
@@ -38,4 +41,81 @@ public class ConfigModule extends AbstractModule {
     protected Config provideStatsdConfig(@Named("openscoring") Config baseConfig) {
         return baseConfig.getConfig("statsd");
     }
+
+    @Provides
+    @Singleton
+    protected ServerSettings provideServerSettings(@Named("openscoring") Config baseConfig) {
+        final Config evaluationConfig = baseConfig.getConfig("evaluation");
+        final ServerSettings settings = new ServerSettings();
+
+        settings.setBatchParallelism(evaluationConfig.getInt("parallelism"));
+        settings.setBatchMinChunkSize(evaluationConfig.getInt("minChunkSize"));
+        settings.setVersionParallelism(evaluationConfig.getInt("versionParallelism"));
+        settings.setVersionTimeoutMillis(evaluationConfig.getLong("versionTimeoutMillis"));
+
+        final Config queueConfig = baseConfig.getConfig("queue");
+
+        settings.setQueueWorkers(queueConfig.getInt("workers"));
+        settings.setQueueCapacity(queueConfig.getInt("capacity"));
+        settings.setRetryAfterSeconds(queueConfig.getInt("retryAfterSeconds"));
+        settings.setContainerThreads(baseConfig.getInt("threads"));
+
+        final Config coalescingConfig = baseConfig.getConfig("coalescing");
+
+        settings.setCoalescingEnabled(coalescingConfig.getBoolean("enabled"));
+        settings.setCoalescingWindowMicros(coalescingConfig.getLong("windowMicros"));
+        settings.setCoalescingMaxBatchSize(coalescingConfig.getInt("maxBatchSize"));
+
+        final Config resultCacheConfig = baseConfig.getConfig("resultCache");
+
+        settings.setResultCacheEnabled(resultCacheConfig.getBoolean("enabled"));
+        settings.setResultCacheMaximumSize(resultCacheConfig.getLong("maximumSize"));
+        settings.setResultCacheTtlSeconds(resultCacheConfig.getLong("ttlSeconds"));
+
+        final String storageDirectory = baseConfig.getString("storage.directory");
+
+        settings.setStorageDirectory(storageDirectory.isEmpty() ? null : storageDirectory);
+        settings.setStorageSnapshots(baseConfig.getBoolean("storage.snapshots"));
+        settings.setLoadParallelism(baseConfig.getInt("storage.loadParallelism"));
+
+        final Config deployConfig = baseConfig.getConfig("deploy");
+
+        settings.setDeployWorkers(deployConfig.getInt("workers"));
+        settings.setDeployQueueCapacity(deployConfig.getInt("queueCapacity"));
+        settings.setDeployMaxBytes(deployConfig.getBytes("maxBytes"));
+
+        final Config residencyConfig = baseConfig.getConfig("residency");
+
+        settings.setResidentMaxBytes(residencyConfig.getBytes("maxBytes"));
+        settings.setResidentIdleSeconds(residencyConfig.getLong("idleSeconds"));
+
+        final Config shadowConfig = baseConfig.getConfig("shadow");
+
+        settings.setShadowWorkers(shadowConfig.getInt("workers"));
+        settings.setShadowQueueCapacity(shadowConfig.getInt("queueCapacity"));
+
+        final Config auditConfig = baseConfig.getConfig("audit");
+        final AuditPolicy auditPolicy = toAuditPolicy(auditConfig, AuditPolicy.DISABLED);
+        final ConfigObject auditModels = auditConfig.getObject("models");
+
+        settings.setAuditCapacity(auditConfig.getInt("capacity"));
+        settings.setAuditPolicy(auditPolicy);
+
+        for (String modelId : auditModels.keySet()) {
+            final Config modelConfig = ((ConfigObject)auditModels.get(modelId)).toConfig();
+            settings.getAuditPolicies().put(modelId, toAuditPolicy(modelConfig, auditPolicy));
+        }
+
+        return settings;
+    }
+
+    protected static AuditPolicy toAuditPolicy(Config config, AuditPolicy defaults) {
+        final double sampleRate = config.hasPath("sampleRate") ? config.getDouble("sampleRate")
+                                                               : defaults.getSampleRate();
+        final AuditPolicy.Level level = config.hasPath("level")
+                                        ? AuditPolicy.Level.valueOf(config.getString("level").toUpperCase())
+                                        : defaults.getLevel();
+
+        return new AuditPolicy(sampleRate, level);
+    }
 }
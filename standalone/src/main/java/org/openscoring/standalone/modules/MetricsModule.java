@@ -9,7 +9,17 @@ import com.google.inject.Provides;
 import com.google.inject.Singleton;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
+import org.openscoring.standalone.metrics.AuditLogMetricSet;
+import org.openscoring.standalone.metrics.EvaluationQueueMetricSet;
+import org.openscoring.server.ModelRegistry;
+import org.openscoring.server.evaluation.ModelMetrics;
 import org.openscoring.standalone.metrics.ModelCacheMetricSet;
+import org.openscoring.standalone.metrics.ModelEvaluationMetrics;
+import org.openscoring.standalone.metrics.ModelFootprintMetrics;
+import org.openscoring.standalone.metrics.ModelLoaderMetricSet;
+import org.openscoring.standalone.metrics.ModelResidencyMetricSet;
+import org.openscoring.standalone.metrics.ResultCacheMetricSet;
+import org.openscoring.standalone.metrics.ShadowEvaluatorMetricSet;
 import org.openscoring.standalone.metrics.health.ModelHealthCheck;
 
 import java.util.Map;
@@ -20,6 +30,12 @@ public class MetricsModule extends AbstractModule {
     protected void configure() {
         final Multibinder<MetricSet> metricSets = Multibinder.newSetBinder(binder(), MetricSet.class);
         metricSets.addBinding().to(ModelCacheMetricSet.class);
+        metricSets.addBinding().to(EvaluationQueueMetricSet.class);
+        metricSets.addBinding().to(AuditLogMetricSet.class);
+        metricSets.addBinding().to(ResultCacheMetricSet.class);
+        metricSets.addBinding().to(ModelLoaderMetricSet.class);
+        metricSets.addBinding().to(ModelResidencyMetricSet.class);
+        metricSets.addBinding().to(ShadowEvaluatorMetricSet.class);
 
         MapBinder<String, HealthCheck> healthChecks = MapBinder.newMapBinder(binder(),
                                                                              String.class,
@@ -29,11 +45,15 @@ public class MetricsModule extends AbstractModule {
 
     @Provides
     @Singleton
-    protected MetricRegistry provideMetricRegistry(Set<MetricSet> metrics) {
+    protected MetricRegistry provideMetricRegistry(Set<MetricSet> metrics,
+                                                   ModelRegistry modelRegistry,
+                                                   ModelMetrics modelMetrics) {
         final MetricRegistry metricRegistry = new MetricRegistry();
         for (MetricSet metric: metrics) {
             metricRegistry.registerAll(metric);
         }
+        modelRegistry.addListener(new ModelFootprintMetrics(modelRegistry, metricRegistry));
+        modelRegistry.addListener(new ModelEvaluationMetrics(modelRegistry, modelMetrics, metricRegistry));
         return metricRegistry;
     }
 
@@ -7,18 +7,16 @@ import com.codahale.metrics.servlets.HealthCheckServlet;
 import com.codahale.metrics.servlets.MetricsServlet;
 import com.codahale.metrics.servlets.PingServlet;
 import com.codahale.metrics.servlets.ThreadDumpServlet;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.google.inject.servlet.ServletModule;
 import com.sun.jersey.guice.spi.container.servlet.GuiceContainer;
 import com.typesafe.config.Config;
 import org.codehaus.jackson.jaxrs.JacksonJsonProvider;
-import org.dmg.pmml.PMML;
+import org.openscoring.common.SmileProvider;
 import org.openscoring.server.ModelService;
+import org.openscoring.server.evaluation.InvalidInputExceptionMapper;
 import org.openscoring.standalone.resources.BasicHealthResource;
 
 import javax.ws.rs.core.UriBuilder;
@@ -35,6 +33,8 @@ public class ServletResourceModule extends ServletModule {
     @Override
     protected void configureServlets() {
         bind(JacksonJsonProvider.class).in(Singleton.class);
+        bind(SmileProvider.class).in(Singleton.class);
+        bind(InvalidInputExceptionMapper.class).in(Singleton.class);
 
         bind(ThreadDumpServlet.class).in(Singleton.class);
         bind(MetricsServlet.class).in(Singleton.class);
@@ -58,13 +58,6 @@ public class ServletResourceModule extends ServletModule {
         return uriBuilder.build().getRawPath();
     }
 
-    @Provides
-    @Singleton
-    @Named("pmml-model-cache")
-    protected Table<String, Integer, PMML> provideModelCache() {
-        return HashBasedTable.create();
-    }
-
     @Provides
     @Singleton
     protected InstrumentedResourceMethodDispatchAdapter provideInstrumentedResourceMethodDispatchAdapter(MetricRegistry registry) {
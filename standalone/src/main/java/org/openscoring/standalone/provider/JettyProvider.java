@@ -9,14 +9,17 @@ import com.google.inject.servlet.GuiceFilter;
 import com.google.inject.servlet.GuiceServletContextListener;
 import com.typesafe.config.Config;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.openscoring.standalone.servlets.GuiceAdminServletContextListener;
 
 public class JettyProvider implements Provider<Server> {
     private final Injector injector;
     private final String path;
     private final int port;
+    private final int threads;
     private final AdminServletContextListener adminServletContextListener;
 
     @Inject
@@ -26,12 +29,20 @@ public class JettyProvider implements Provider<Server> {
         this.injector = injector;
         this.path = config.getString("path");
         this.port = config.getInt("port");
+        this.threads = config.getInt("threads");
         this.adminServletContextListener = adminServletContextListener;
     }
 
     @Override
     public Server get() {
-        final Server server = new Server(port);
+        final QueuedThreadPool threadPool = new QueuedThreadPool(threads);
+        threadPool.setName("openscoring-jetty");
+
+        final Server server = new Server(threadPool);
+        final ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+
         final ServletContextHandler handler = new ServletContextHandler();
         handler.setContextPath(path);
         handler.addFilter(GuiceFilter.class, "/*", null);